@@ -2,11 +2,20 @@ package org.moddingx.updatecheckergenerator;
 
 import org.apache.commons.text.StringEscapeUtils;
 import org.jsoup.Jsoup;
+import org.moddingx.updatecheckergenerator.jfr.ChangelogProcessEvent;
 
 public class ChangelogProcessor {
 
     public static String process(String html) {
-        return normalizeText(Jsoup.parse(html).wholeText());
+        ChangelogProcessEvent event = new ChangelogProcessEvent();
+        event.begin();
+        String text = normalizeText(Jsoup.parse(html).wholeText());
+        if (event.shouldCommit()) {
+            event.inputLength = html.length();
+            event.outputLength = text.length();
+            event.commit();
+        }
+        return text;
     }
 
     private static String normalizeText(String str) {
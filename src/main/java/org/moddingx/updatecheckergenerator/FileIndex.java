@@ -0,0 +1,101 @@
+package org.moddingx.updatecheckergenerator;
+
+import org.moddingx.updatecheckergenerator.platform.FileKey;
+import org.moddingx.updatecheckergenerator.platform.ModdingPlatform;
+
+import java.time.Instant;
+import java.util.*;
+
+// Compact view of the files of a project, sorted by date. Game versions are interned into a
+// sorted dictionary and each file references them through a bitset, so generation does not
+// need to query the platform model in its loops.
+class FileIndex<T> {
+
+    private final List<T> files;
+    private final FileKey[] keys;
+    private final BitSet stable;
+    private final String[] gameVersions;
+    private final int wordsPerFile;
+    private final long[] gameVersionBits;
+
+    private FileIndex(List<T> files, FileKey[] keys, BitSet stable, String[] gameVersions, int wordsPerFile, long[] gameVersionBits) {
+        this.files = files;
+        this.keys = keys;
+        this.stable = stable;
+        this.gameVersions = gameVersions;
+        this.wordsPerFile = wordsPerFile;
+        this.gameVersionBits = gameVersionBits;
+    }
+
+    public static <T> FileIndex<T> build(ModdingPlatform<T> platform, List<T> unsortedFiles) {
+        int size = unsortedFiles.size();
+        long[] unsortedDates = new long[size];
+        List<Set<String>> unsortedGameVersions = new ArrayList<>(size);
+        SortedSet<String> allGameVersions = new TreeSet<>();
+        for (int i = 0; i < size; i++) {
+            unsortedDates[i] = epochNanos(platform.fileDate(unsortedFiles.get(i)));
+            Set<String> gameVersions = platform.gameVersions(unsortedFiles.get(i));
+            unsortedGameVersions.add(gameVersions);
+            allGameVersions.addAll(gameVersions);
+        }
+
+        // Stable sort, so files with the same date keep the order from the platform
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) order[i] = i;
+        Arrays.sort(order, Comparator.comparingLong(i -> unsortedDates[i]));
+
+        String[] gameVersions = allGameVersions.toArray(String[]::new);
+        Map<String, Integer> gameVersionIds = new HashMap<>();
+        for (int i = 0; i < gameVersions.length; i++) gameVersionIds.put(gameVersions[i], i);
+
+        int wordsPerFile = (gameVersions.length + 63) / 64;
+        List<T> files = new ArrayList<>(size);
+        FileKey[] keys = new FileKey[size];
+        BitSet stable = new BitSet(size);
+        long[] gameVersionBits = new long[size * wordsPerFile];
+        for (int i = 0; i < size; i++) {
+            int idx = order[i];
+            T file = unsortedFiles.get(idx);
+            files.add(file);
+            keys[i] = platform.key(file);
+            if (platform.isStable(file)) stable.set(i);
+            for (String gameVersion : unsortedGameVersions.get(idx)) {
+                int id = gameVersionIds.get(gameVersion);
+                gameVersionBits[i * wordsPerFile + (id >>> 6)] |= 1L << id;
+            }
+        }
+        return new FileIndex<>(List.copyOf(files), keys, stable, gameVersions, wordsPerFile, gameVersionBits);
+    }
+
+    private static long epochNanos(Instant instant) {
+        return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000_000L), instant.getNano());
+    }
+
+    public List<T> files() {
+        return this.files;
+    }
+
+    public int size() {
+        return this.files.size();
+    }
+
+    public FileKey key(int file) {
+        return this.keys[file];
+    }
+
+    public boolean isStable(int file) {
+        return this.stable.get(file);
+    }
+
+    public int gameVersionCount() {
+        return this.gameVersions.length;
+    }
+
+    public String gameVersion(int gameVersion) {
+        return this.gameVersions[gameVersion];
+    }
+
+    public boolean hasGameVersion(int file, int gameVersion) {
+        return (this.gameVersionBits[file * this.wordsPerFile + (gameVersion >>> 6)] & (1L << gameVersion)) != 0;
+    }
+}
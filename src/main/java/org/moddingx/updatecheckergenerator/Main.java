@@ -1,15 +1,20 @@
 package org.moddingx.updatecheckergenerator;
 
 import com.google.gson.JsonObject;
+import jakarta.annotation.Nullable;
 import joptsimple.OptionException;
 import joptsimple.OptionParser;
 import joptsimple.OptionSet;
 import joptsimple.OptionSpec;
 import joptsimple.util.PathConverter;
 import joptsimple.util.PathProperties;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
 import org.apache.commons.lang3.tuple.Pair;
 import org.moddingx.cursewrapper.api.RequestException;
+import org.moddingx.updatecheckergenerator.cache.CacheFile;
 import org.moddingx.updatecheckergenerator.cache.FileCache;
+import org.moddingx.updatecheckergenerator.config.ProjectEntry;
 import org.moddingx.updatecheckergenerator.platform.ModdingPlatform;
 
 import java.io.IOException;
@@ -17,62 +22,203 @@ import java.io.Writer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
-import java.util.List;
-import java.util.Set;
-import java.util.stream.Stream;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
 
 public class Main {
 
     public static void main(String[] args) throws IOException {
+        if (args.length > 0 && "merge-cache".equals(args[0])) {
+            mergeCache(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
         OptionParser options = new OptionParser(false);
-        OptionSpec<Platform> specPlatform = options.acceptsAll(List.of("p", "platform"), "The modding platform to fetch the data from.").withRequiredArg().withValuesConvertedBy(Platform.ARG);
+        OptionSpec<Platform> specPlatform = options.acceptsAll(List.of("p", "platform"), "The modding platform for projects in the config without a platform prefix.").withRequiredArg().withValuesConvertedBy(Platform.ARG);
         OptionSpec<Path> specCfg = options.acceptsAll(List.of("c", "config"), "A list of project ids to generate update checkers for.").withRequiredArg().withValuesConvertedBy(new PathConverter(PathProperties.FILE_EXISTING));
         OptionSpec<Path> specDir = options.acceptsAll(List.of("d", "dir", "directory"), "Output directory.").withRequiredArg().withValuesConvertedBy(new PathConverter());
         OptionSpec<Path> specCache = options.acceptsAll(List.of("f", "cache"), "Cache file to use.").withRequiredArg().withValuesConvertedBy(new PathConverter());
         OptionSpec<Void> specPretty = options.acceptsAll(List.of("pretty"), "Pretty-print the output json.");
-        OptionSpec<ModLoader> specLoader = options.acceptsAll(List.of("l", "loader"), "Query file for the provided modloaders.").withRequiredArg().withValuesConvertedBy(ModLoader.ARG);
+        OptionSpec<ModLoader> specLoader = options.acceptsAll(List.of("l", "loader"), "Query file for the provided modloaders, unless the config sets them for a project.").withRequiredArg().withValuesConvertedBy(ModLoader.ARG);
+        OptionSpec<Shard> specShard = options.acceptsAll(List.of("shard"), "Only process the projects assigned to this shard.").withRequiredArg().withValuesConvertedBy(Shard.ARG);
+        OptionSpec<Integer> specBudget = options.acceptsAll(List.of("time-budget"), "Time budget for the run in minutes. Projects that were updated least recently are processed first.").withRequiredArg().ofType(Integer.class);
+        OptionSpec<Path> specJfr = options.acceptsAll(List.of("jfr"), "Record the run with Java Flight Recorder to this file.").withRequiredArg().withValuesConvertedBy(new PathConverter());
+        OptionSpec<Path> specPlan = options.acceptsAll(List.of("plan"), "Only estimate the network cost of the run. Optionally writes the projects that need work to this file, in priority order.").withOptionalArg().withValuesConvertedBy(new PathConverter());
+        OptionSpec<Path> specExecutePlan = options.acceptsAll(List.of("execute-plan"), "Generate the projects from a plan file, in the order of the plan.").withRequiredArg().withValuesConvertedBy(new PathConverter(PathProperties.FILE_EXISTING));
         try {
             OptionSet set = options.parse(args);
-            if (!set.has(specPlatform) || !set.has(specCfg) || !set.has(specDir)) {
-                if (!set.has(specPlatform)) System.err.println("Missing required option: " + specPlatform);
-                if (!set.has(specCfg)) System.err.println("Missing required option: " + specCfg);
-                if (!set.has(specDir)) System.err.println("Missing required option: " + specDir);
+            boolean planOnly = set.has(specPlan);
+            // The scheduler orders projects by the generation times stored in the cache
+            boolean budgetWithoutCache = set.has(specBudget) && !set.has(specCache);
+            if (set.has(specCfg) == set.has(specExecutePlan) || (!planOnly && !set.has(specDir)) || budgetWithoutCache) {
+                if (!set.has(specCfg) && !set.has(specExecutePlan)) System.err.println("Missing required option: " + specCfg);
+                if (set.has(specCfg) && set.has(specExecutePlan)) System.err.println("Options " + specCfg + " and " + specExecutePlan + " can't be used together");
+                if (!planOnly && !set.has(specDir)) System.err.println("Missing required option: " + specDir);
+                if (budgetWithoutCache) System.err.println("--time-budget requires --cache");
                 options.printHelpOn(System.err);
                 System.exit(0);
                 return;
             }
 
-            Set<ModLoader> loaders = set.valuesOf(specLoader).isEmpty() ? Set.of(ModLoader.values()) : Set.copyOf(set.valuesOf(specLoader));
+            Recording recording = set.has(specJfr) ? startRecording(set.valueOf(specJfr)) : null;
+            try {
+                Set<ModLoader> loaders = set.valuesOf(specLoader).isEmpty() ? Set.of(ModLoader.values()) : Set.copyOf(set.valuesOf(specLoader));
             
-            Stream<String> projectIds = Files.readAllLines(set.valueOf(specCfg)).stream()
-                    .map(str -> str.contains("#") ? str.substring(0, str.indexOf('#')) : str)
-                    .map(String::strip)
-                    .filter(str -> !str.isEmpty());
+                // Plans are regular config files, they just list everything explicitly
+                Path cfgPath = set.has(specExecutePlan) ? set.valueOf(specExecutePlan) : set.valueOf(specCfg);
+                List<ProjectEntry> projects = ProjectEntry.readConfig(cfgPath, set.valueOf(specPlatform), loaders);
+
+                // Configs with platform prefixes write to a directory per platform, so slugs can't clash.
+                // This only depends on the full config, so all shards of it use the same layout. Plans always
+                // have platform prefixes, so they record the layout of the config they were made from.
+                boolean splitOutput = set.has(specExecutePlan) ? Planner.isSplitOutput(cfgPath) : projects.stream().anyMatch(ProjectEntry::explicitPlatform);
+            
+                if (set.has(specShard)) {
+                    Shard shard = set.valueOf(specShard);
+                    projects = projects.stream().filter(entry -> shard.contains(entry.projectId())).toList();
+                }
 
-            Path basePath = set.valueOf(specDir);
-            if (!Files.exists(basePath)) Files.createDirectories(basePath);
+                CacheFile cache = new CacheFile();
+                if (set.has(specCache)) cache.read(set.valueOf(specCache));
+
+                Map<Platform, ModdingPlatform<?>> platforms = new EnumMap<>(Platform.class);
+                if (planOnly) {
+                    plan(Scheduler.order(projects, cache, Instant.now()), platforms, cache, splitOutput, set.valueOf(specPlan));
+                    return;
+                }
+
+                Path basePath = set.valueOf(specDir);
+                Map<Platform, Path> outputPaths = new EnumMap<>(Platform.class);
+                for (Platform platformKey : Platform.values()) {
+                    outputPaths.put(platformKey, splitOutput ? basePath.resolve(platformKey.name().toLowerCase(Locale.ROOT)) : basePath);
+                }
+                for (ProjectEntry entry : projects) {
+                    Path outputPath = outputPaths.get(entry.platform());
+                    if (!Files.exists(outputPath)) Files.createDirectories(outputPath);
+                }
+                if (!Files.exists(basePath)) Files.createDirectories(basePath);
 
-            boolean pretty = set.has(specPretty);
-            Platform platformKey = set.valueOf(specPlatform);
+                boolean pretty = set.has(specPretty);
 
-            FileCache cache = new FileCache(platformKey);
-            if (set.has(specCache)) cache.read(set.valueOf(specCache));
+                Instant deadline = null;
+                if (set.has(specBudget)) {
+                    Instant now = Instant.now();
+                    deadline = now.plus(Duration.ofMinutes(set.valueOf(specBudget)));
+                    // Plans are already in priority order
+                    if (!set.has(specExecutePlan)) projects = Scheduler.order(projects, cache, now);
+                }
             
-            ModdingPlatform<?> platform = platformKey.create();
-            projectIds.forEach(projectId -> {
                 try {
-                    for (int i = 0; i < 10; i++) {
-                        if (generate(platform, loaders, cache, basePath, projectId, pretty)) {
+                    for (int idx = 0; idx < projects.size(); idx++) {
+                        if (deadline != null && !Instant.now().isBefore(deadline)) {
+                            System.out.println("Time budget used up, " + (projects.size() - idx) + " project(s) left for the next run");
                             break;
                         }
-                        System.out.println("Failed " + (i + 1) + " time(s)");
+                        ProjectEntry entry = projects.get(idx);
+                        ModdingPlatform<?> platform = platforms.computeIfAbsent(entry.platform(), Platform::create);
+                        FileCache platformCache = cache.get(entry.platform());
+                        platformCache.attempted(entry.projectId(), Instant.now());
+                        try {
+                            for (int i = 0; i < 10; i++) {
+                                if (generate(platform, entry.loaders(), platformCache, outputPaths.get(entry.platform()), entry.projectId(), pretty)) {
+                                    platformCache.generated(entry.projectId(), Instant.now());
+                                    break;
+                                }
+                                System.out.println("Failed " + (i + 1) + " time(s)");
+                            }
+                        } catch (IOException | RuntimeException e) {
+                            // A single broken project (for example a deleted one) should not end the run
+                            System.err.println("Failed to generate update checker for " + entry.toConfigLine() + ": " + e.getMessage());
+                        }
                     }
-                } catch (IOException e) {
-                    throw new RuntimeException(e);
+                } finally {
+                    if (set.has(specCache)) cache.write(set.valueOf(specCache));
+                }
+            } finally {
+                if (recording != null) {
+                    // Writes the recording to its destination
+                    recording.stop();
+                    recording.close();
                 }
-            });
+            }
+        } catch (OptionException e) {
+            System.err.println("Option exception: " + e.getMessage());
+            options.printHelpOn(System.err);
+            System.exit(0);
+        }
+    }
 
-            if (set.has(specCache)) cache.write(set.valueOf(specCache));
+    private static Recording startRecording(Path path) throws IOException {
+        try {
+            Recording recording = new Recording(Configuration.getConfiguration("default"));
+            recording.setName("UpdateCheckerGenerator");
+            recording.setDestination(path);
+            recording.start();
+            return recording;
+        } catch (ParseException e) {
+            throw new IOException("Failed to load flight recorder configuration", e);
+        }
+    }
+
+    private static void plan(List<ProjectEntry> projects, Map<Platform, ModdingPlatform<?>> platforms, CacheFile cache, boolean splitOutput, @Nullable Path output) throws IOException {
+        List<String> workLines = new ArrayList<>();
+        int requests = 0;
+        int downloads = 0;
+        int failed = 0;
+        for (ProjectEntry entry : projects) {
+            ModdingPlatform<?> platform = platforms.computeIfAbsent(entry.platform(), Platform::create);
+            Planner.ProjectPlan plan;
+            try {
+                plan = Planner.plan(platform, entry, cache.get(entry.platform()));
+            } catch (IOException e) {
+                System.err.println("Failed to plan " + entry.toConfigLine() + ": " + e.getMessage());
+                failed += 1;
+                continue;
+            }
+            requests += plan.requests();
+            downloads += plan.downloads();
+            if (plan.needsWork()) {
+                String summary = plan.files() + " file(s), " + plan.requests() + " request(s), " + plan.downloads() + " jar download(s), " + plan.changelogs() + " missing changelog(s)";
+                System.out.println(entry.toConfigLine() + ": " + summary);
+                workLines.add(entry.toConfigLine() + " # " + summary);
+            }
+        }
+        System.out.println("Expected requests: " + requests);
+        System.out.println("Expected jar downloads: " + downloads);
+        System.out.println("Projects that need work: " + workLines.size() + " of " + projects.size());
+        if (failed > 0) System.out.println("Projects that could not be planned: " + failed);
+        if (output != null) {
+            if (output.getParent() != null && !Files.exists(output.getParent())) Files.createDirectories(output.getParent());
+            List<String> lines = new ArrayList<>();
+            if (splitOutput) lines.add(Planner.SPLIT_OUTPUT_HEADER);
+            lines.addAll(workLines);
+            Files.write(output, lines);
+        }
+    }
+
+    private static void mergeCache(String[] args) throws IOException {
+        OptionParser options = new OptionParser(false);
+        OptionSpec<Path> specOutput = options.acceptsAll(List.of("o", "output"), "The merged cache file.").withRequiredArg().withValuesConvertedBy(new PathConverter());
+        OptionSpec<Path> specInputs = options.nonOptions("The cache files to merge. On conflicts, earlier files win.").withValuesConvertedBy(new PathConverter(PathProperties.FILE_EXISTING));
+        try {
+            OptionSet set = options.parse(args);
+            if (!set.has(specOutput) || set.valuesOf(specInputs).isEmpty()) {
+                if (!set.has(specOutput)) System.err.println("Missing required option: " + specOutput);
+                if (set.valuesOf(specInputs).isEmpty()) System.err.println("No cache files to merge.");
+                options.printHelpOn(System.err);
+                System.exit(0);
+                return;
+            }
+
+            CacheFile merged = new CacheFile();
+            for (Path input : set.valuesOf(specInputs)) {
+                CacheFile cache = new CacheFile();
+                cache.read(input);
+                merged.merge(cache);
+            }
+            merged.write(set.valueOf(specOutput));
         } catch (OptionException e) {
             System.err.println("Option exception: " + e.getMessage());
             options.printHelpOn(System.err);
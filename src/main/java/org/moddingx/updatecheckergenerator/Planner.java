@@ -0,0 +1,55 @@
+package org.moddingx.updatecheckergenerator;
+
+import org.moddingx.updatecheckergenerator.cache.FileCache;
+import org.moddingx.updatecheckergenerator.config.ProjectEntry;
+import org.moddingx.updatecheckergenerator.platform.FileKey;
+import org.moddingx.updatecheckergenerator.platform.ModdingPlatform;
+import org.moddingx.updatecheckergenerator.platform.ResolvableVersion;
+import org.moddingx.updatecheckergenerator.version.VersionResolver;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public class Planner {
+
+    // First line of plans made from configs that write to a directory per platform
+    public static final String SPLIT_OUTPUT_HEADER = "# split-output";
+
+    // Generating a project always queries the project and its files
+    private static final int BASE_REQUESTS = 2;
+
+    public static boolean isSplitOutput(Path plan) throws IOException {
+        try (Stream<String> lines = Files.lines(plan)) {
+            return lines.findFirst().map(String::strip).filter(SPLIT_OUTPUT_HEADER::equals).isPresent();
+        }
+    }
+
+    // Estimates the network cost of generating a project. Only the file list is queried,
+    // versions and changelogs are checked against the cache without fetching anything.
+    public static <T> ProjectPlan plan(ModdingPlatform<T> platform, ProjectEntry entry, FileCache cache) throws IOException {
+        List<T> files = platform.listFiles(entry.projectId(), entry.loaders());
+        int downloads = 0;
+        int changelogs = 0;
+        for (T file : files) {
+            FileKey key = platform.key(file);
+            ResolvableVersion version = platform.version(file);
+            Optional<String> cachedVersion = version.requiresDownload() ? cache.cachedVersion(key) : Optional.empty();
+            if (version.requiresDownload() && cachedVersion.isEmpty()) downloads += 1;
+            // Files without a version are not part of the update checker, so they don't need a changelog
+            if (!VersionResolver.INVALID.equals(cachedVersion.orElse(null)) && !cache.hasChangelog(key)) changelogs += 1;
+        }
+        int requests = BASE_REQUESTS + (changelogs == 0 ? 0 : platform.changelogRequests(changelogs));
+        return new ProjectPlan(entry, files.size(), requests, downloads, changelogs);
+    }
+
+    public record ProjectPlan(ProjectEntry entry, int files, int requests, int downloads, int changelogs) {
+
+        public boolean needsWork() {
+            return this.downloads > 0 || this.changelogs > 0;
+        }
+    }
+}
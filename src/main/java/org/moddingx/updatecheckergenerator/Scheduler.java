@@ -0,0 +1,33 @@
+package org.moddingx.updatecheckergenerator;
+
+import org.moddingx.updatecheckergenerator.cache.CacheFile;
+import org.moddingx.updatecheckergenerator.cache.FileCache;
+import org.moddingx.updatecheckergenerator.config.ProjectEntry;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public class Scheduler {
+
+    // Orders projects by how long ago they were last generated or attempted, weighted by their priority.
+    // Failed attempts count, so a failing project does not stay in front of all others.
+    // Projects that were never generated or attempted come first. Ties keep the order from the config.
+    public static List<ProjectEntry> order(List<ProjectEntry> entries, CacheFile cache, Instant now) {
+        return entries.stream()
+                .sorted(Comparator.comparingDouble((ProjectEntry entry) -> score(entry, cache, now)).reversed())
+                .toList();
+    }
+
+    private static double score(ProjectEntry entry, CacheFile cache, Instant now) {
+        FileCache platformCache = cache.get(entry.platform());
+        return Stream.of(platformCache.lastGenerated(entry.projectId()), platformCache.lastAttempted(entry.projectId()))
+                .flatMap(Optional::stream)
+                .max(Comparator.naturalOrder())
+                .map(time -> Math.max(Duration.between(time, now).toSeconds(), 0) * entry.priority())
+                .orElse(Double.POSITIVE_INFINITY);
+    }
+}
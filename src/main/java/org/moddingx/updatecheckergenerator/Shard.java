@@ -0,0 +1,56 @@
+package org.moddingx.updatecheckergenerator;
+
+import com.google.common.hash.Hashing;
+import joptsimple.ValueConversionException;
+import joptsimple.ValueConverter;
+
+import java.nio.charset.StandardCharsets;
+
+public record Shard(int index, int count) {
+
+    public static final ValueConverter<Shard> ARG = new ShardValueConverter();
+
+    public Shard {
+        if (count < 1) throw new IllegalArgumentException("Shard count must be positive: " + count);
+        if (index < 1 || index > count) throw new IllegalArgumentException("Shard index out of range: " + index + "/" + count);
+    }
+
+    // Must stay stable across JVMs and releases, so don't use String#hashCode here
+    public boolean contains(String projectId) {
+        int hash = Hashing.murmur3_32_fixed().hashString(projectId, StandardCharsets.UTF_8).asInt();
+        return Math.floorMod(hash, this.count) == this.index - 1;
+    }
+
+    @Override
+    public String toString() {
+        return this.index + "/" + this.count;
+    }
+
+    private static class ShardValueConverter implements ValueConverter<Shard> {
+
+        private ShardValueConverter() {
+            //
+        }
+
+        @Override
+        public String valuePattern() {
+            return "i/n";
+        }
+
+        @Override
+        public Class<? extends Shard> valueType() {
+            return Shard.class;
+        }
+
+        @Override
+        public Shard convert(String value) {
+            int idx = value.indexOf('/');
+            if (idx < 0) throw new ValueConversionException("Invalid shard '" + value + "', expected i/n");
+            try {
+                return new Shard(Integer.parseInt(value.substring(0, idx).strip()), Integer.parseInt(value.substring(idx + 1).strip()));
+            } catch (IllegalArgumentException e) {
+                throw new ValueConversionException("Invalid shard '" + value + "': " + e.getMessage(), e);
+            }
+        }
+    }
+}
@@ -5,11 +5,14 @@ import com.google.gson.GsonBuilder;
 import com.google.gson.JsonObject;
 import org.apache.commons.lang3.tuple.Pair;
 import org.moddingx.updatecheckergenerator.cache.FileCache;
+import org.moddingx.updatecheckergenerator.platform.FileKey;
+import org.moddingx.updatecheckergenerator.platform.Futures;
 import org.moddingx.updatecheckergenerator.platform.ModdingPlatform;
 import org.moddingx.updatecheckergenerator.platform.ProjectData;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 public class UpdateCheckerGenerator {
 
@@ -30,19 +33,29 @@ public class UpdateCheckerGenerator {
     }
 
     public static <T> Pair<String, JsonObject> generateUpdateChecker(ModdingPlatform<T> platform, Set<ModLoader> loaders, String projectId, FileCache cache) throws IOException {
-        ProjectData project = platform.project(projectId);
-        System.out.println("Generating update checker for " + project.slug());
+        return Futures.join(generateUpdateCheckerAsync(platform, loaders, projectId, cache));
+    }
 
-        List<T> filesSorted = new ArrayList<>(platform.listFiles(projectId, loaders));
-        filesSorted.sort(Comparator.comparing(platform::fileDate));
-        List<String> allGameVersions = filesSorted.stream().flatMap(file -> platform.gameVersions(file).stream()).sorted().toList();
+    public static <T> CompletableFuture<Pair<String, JsonObject>> generateUpdateCheckerAsync(ModdingPlatform<T> platform, Set<ModLoader> loaders, String projectId, FileCache cache) {
+        return platform.projectAsync(projectId).thenCompose(project -> {
+            System.out.println("Generating update checker for " + project.slug());
+            return platform.listFilesAsync(projectId, loaders).thenCompose(files -> {
+                FileIndex<T> index = FileIndex.build(platform, files);
+                return resolveVersions(platform, index.files(), cache)
+                        .thenCompose(versions -> fetchMissingChangelogs(platform, index.files(), versions, cache)
+                                .thenApply(v -> Pair.of(project.slug(), buildUpdateChecker(project, index, versions, cache))));
+            });
+        });
+    }
 
+    private static JsonObject buildUpdateChecker(ProjectData project, FileIndex<?> index, Map<FileKey, String> versions, FileCache cache) {
         JsonObject json = new JsonObject();
         json.addProperty("homepage", project.homepage());
 
         JsonObject promos = new JsonObject();
-        for (String gameVersion : allGameVersions) {
-            VersionPromo promo = processGameVersionPromos(platform, gameVersion, filesSorted, cache);
+        for (int gv = 0; gv < index.gameVersionCount(); gv++) {
+            String gameVersion = index.gameVersion(gv);
+            VersionPromo promo = processGameVersionPromos(index, gv, versions);
             if (promo.recommended().isPresent())
                 promos.addProperty(gameVersion + "-recommended", promo.recommended().get());
             if (promo.latest().isPresent())
@@ -50,57 +63,86 @@ public class UpdateCheckerGenerator {
         }
         json.add("promos", promos);
 
-        for (String gameVersion : allGameVersions) {
+        for (int gv = 0; gv < index.gameVersionCount(); gv++) {
             JsonObject releases = new JsonObject();
             
-            for (T file : filesSorted) {
-                if (!platform.gameVersions(file).contains(gameVersion)) continue;
-                Optional<String> version = resolveVersion(platform, file, cache);
-                if (version.isEmpty()) continue;
+            for (int file = 0; file < index.size(); file++) {
+                if (!index.hasGameVersion(file, gv)) continue;
+                String version = versions.get(index.key(file));
+                if (version == null) continue;
                 
-                releases.addProperty(version.get(), cache.changelog(platform.key(file), () -> {
-                    try {
-                        return ChangelogProcessor.process(platform.changelog(file));
-                    } catch (IOException e) {
-                        return "";
-                    }
-                }));
+                // Changelogs that failed to load are left empty for this run only
+                releases.addProperty(version, cache.cachedChangelog(index.key(file)).orElse(""));
             }
             
-            json.add(gameVersion, releases);
+            json.add(index.gameVersion(gv), releases);
         }
 
-        return Pair.of(project.slug(), json);
+        return json;
     }
 
-    private static <T> VersionPromo processGameVersionPromos(ModdingPlatform<T> platform, String gameVersion, List<T> allFilesSorted, FileCache cache) {
-        List<T> files = allFilesSorted.stream()
-                .filter(file -> platform.gameVersions(file).contains(gameVersion))
-                .toList();
-        
-        Optional<T> recommended = Optional.empty();
+    // Resolving a version may download the file, so do it one after another to not flood the download servers
+    private static <T> CompletableFuture<Map<FileKey, String>> resolveVersions(ModdingPlatform<T> platform, List<T> files, FileCache cache) {
+        CompletableFuture<Map<FileKey, String>> versions = CompletableFuture.completedFuture(new HashMap<>());
         for (T file : files) {
-            if (platform.isStable(file)) recommended = Optional.of(file);
+            versions = versions.thenCompose(map -> resolveVersion(platform, file, cache).thenApply(version -> {
+                version.ifPresent(ver -> map.put(platform.key(file), ver));
+                return map;
+            }));
         }
-        
-        Optional<T> latest = Optional.empty();
-        for (T file : files) {
-            latest = Optional.of(file);
+        return versions;
+    }
+
+    private static <T> CompletableFuture<Void> fetchMissingChangelogs(ModdingPlatform<T> platform, List<T> files, Map<FileKey, String> versions, FileCache cache) {
+        // Only files with a version end up in the update checker, so only these need a changelog
+        List<T> missing = files.stream()
+                .filter(file -> versions.containsKey(platform.key(file)))
+                .filter(file -> !cache.hasChangelog(platform.key(file)))
+                .toList();
+        if (missing.isEmpty()) return CompletableFuture.completedFuture(null);
+        return platform.changelogsAsync(missing).exceptionally(ex -> {
+            System.err.println("Failed to query changelogs, falling back to single requests: " + ex.getMessage());
+            return Map.of();
+        }).thenCompose(bulk -> {
+            // Changelogs missing from the bulk result are queried one after another to not flood the platform
+            CompletableFuture<Void> changelogs = CompletableFuture.completedFuture(null);
+            for (T file : missing) {
+                FileKey key = platform.key(file);
+                changelogs = changelogs.thenCompose(v -> cache.changelogAsync(key, () -> bulk.containsKey(key)
+                        ? CompletableFuture.completedFuture(ChangelogProcessor.process(bulk.get(key)))
+                        : platform.changelogAsync(file).thenApply(ChangelogProcessor::process)
+                ).handle((changelog, ex) -> {
+                    // Failed loads are not cached, so they are retried in the next run
+                    if (ex != null) System.err.println("Failed to query changelog for '" + platform.fileName(file) + "': " + ex.getMessage());
+                    return null;
+                }));
+            }
+            return changelogs;
+        });
+    }
+
+    private static VersionPromo processGameVersionPromos(FileIndex<?> index, int gameVersion, Map<FileKey, String> versions) {
+        int recommended = -1;
+        int latest = -1;
+        for (int file = 0; file < index.size(); file++) {
+            if (!index.hasGameVersion(file, gameVersion)) continue;
+            if (index.isStable(file)) recommended = file;
+            latest = file;
         }
 
         return new VersionPromo(
-                recommended.flatMap(file -> resolveVersion(platform, file, cache)),
-                latest.flatMap(file -> resolveVersion(platform, file, cache))
+                recommended < 0 ? Optional.empty() : Optional.ofNullable(versions.get(index.key(recommended))),
+                latest < 0 ? Optional.empty() : Optional.ofNullable(versions.get(index.key(latest)))
         );
     }
     
-    private static <T> Optional<String> resolveVersion(ModdingPlatform<T> platform, T file, FileCache cache) {
+    private static <T> CompletableFuture<Optional<String>> resolveVersion(ModdingPlatform<T> platform, T file, FileCache cache) {
         try {
-            return platform.version(file).version(cache);
+            return platform.version(file).versionAsync(cache);
         } catch (IOException e) {
             System.err.println("Failed to get version for '" + platform.fileName(file) + "'");
             e.printStackTrace();
-            return Optional.empty();
+            return CompletableFuture.completedFuture(Optional.empty());
         }
     }
     
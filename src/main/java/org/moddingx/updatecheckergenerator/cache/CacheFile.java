@@ -0,0 +1,83 @@
+package org.moddingx.updatecheckergenerator.cache;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonSyntaxException;
+import org.moddingx.updatecheckergenerator.Platform;
+import org.moddingx.updatecheckergenerator.UpdateCheckerGenerator;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.format.DateTimeParseException;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+// A cache file holding one FileCache per platform
+public class CacheFile {
+
+    public static final int VERSION = 6;
+    
+    // Version 5 caches only hold data for a single platform, they are migrated on read
+    private static final int LEGACY_VERSION = 5;
+
+    private final Map<Platform, FileCache> caches = new EnumMap<>(Platform.class);
+
+    public CacheFile() {
+        for (Platform platform : Platform.values()) {
+            this.caches.put(platform, new FileCache(platform));
+        }
+    }
+
+    public FileCache get(Platform platform) {
+        return this.caches.get(platform);
+    }
+
+    public void merge(CacheFile other) {
+        this.caches.forEach((platform, cache) -> cache.merge(other.get(platform)));
+    }
+
+    public void read(Path path) {
+        this.caches.values().forEach(FileCache::clear);
+        if (Files.exists(path)) {
+            try (Reader reader = Files.newBufferedReader(path)) {
+                JsonObject json = UpdateCheckerGenerator.INTERNAL.fromJson(reader, JsonObject.class);
+                int cacheVersion = json.has("version") ? json.get("version").getAsInt() : 0;
+                if (cacheVersion == CacheFile.VERSION) {
+                    JsonObject platforms = json.getAsJsonObject("platforms");
+                    for (Platform platform : Platform.values()) {
+                        String id = platform.name().toLowerCase(Locale.ROOT);
+                        if (platforms.has(id)) this.get(platform).read(platforms.getAsJsonObject(id));
+                    }
+                } else if (cacheVersion == LEGACY_VERSION && json.has("platform")) {
+                    String id = json.get("platform").getAsString();
+                    for (Platform platform : Platform.values()) {
+                        if (platform.name().toLowerCase(Locale.ROOT).equals(id)) this.get(platform).read(json);
+                    }
+                }
+            } catch (IOException | JsonSyntaxException | IllegalStateException | DateTimeParseException e) {
+                System.out.println("Failed to read file cache: " + e.getClass().getSimpleName() + ": " + e.getMessage());
+                this.caches.values().forEach(FileCache::clear);
+            }
+        }
+    }
+
+    public void write(Path path) {
+        try {
+            if (Files.notExists(path.getParent())) Files.createDirectories(path.getParent());
+            try (Writer writer = Files.newBufferedWriter(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                JsonObject json = new JsonObject();
+                json.addProperty("version", CacheFile.VERSION);
+                JsonObject platforms = new JsonObject();
+                this.caches.forEach((platform, cache) -> platforms.add(platform.name().toLowerCase(Locale.ROOT), cache.write()));
+                json.add("platforms", platforms);
+                writer.write(UpdateCheckerGenerator.INTERNAL.toJson(json) + "\n");
+            }
+        } catch (IOException e) {
+            System.out.println("Failed to write file cache: " + e.getClass().getSimpleName() + ": " + e.getMessage());
+        }
+    }
+}
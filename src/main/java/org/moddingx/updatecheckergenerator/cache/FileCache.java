@@ -4,62 +4,101 @@ import com.google.common.collect.Streams;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
-import com.google.gson.JsonSyntaxException;
 import org.moddingx.updatecheckergenerator.Platform;
-import org.moddingx.updatecheckergenerator.UpdateCheckerGenerator;
 import org.moddingx.updatecheckergenerator.platform.FileKey;
+import org.moddingx.updatecheckergenerator.version.VersionResolver;
 
-import java.io.IOException;
-import java.io.Reader;
-import java.io.Writer;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
-import java.util.HashMap;
-import java.util.Locale;
+import java.time.Instant;
 import java.util.Map;
-import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 public class FileCache {
 
-    public static final int VERSION = 5;
-    
     private final Platform platform;
-    private final Map<FileKey, String> changelogs = new HashMap<>();
-    private final Map<FileKey, String> versions = new HashMap<>();
+    private final SingleFlightMap<FileKey, String> changelogs = new SingleFlightMap<>("changelogs");
+    private final SingleFlightMap<FileKey, String> versions = new SingleFlightMap<>("versions");
+    private final Map<String, Instant> generated = new ConcurrentHashMap<>();
+    private final Map<String, Instant> attempted = new ConcurrentHashMap<>();
 
-    public FileCache(Platform platform) {
+    FileCache(Platform platform) {
         this.platform = platform;
     }
 
+    public boolean hasChangelog(FileKey fileKey) {
+        return this.changelogs.contains(fileKey);
+    }
+
+    public Optional<String> cachedChangelog(FileKey fileKey) {
+        return this.changelogs.getIfLoaded(fileKey);
+    }
+
     public String changelog(FileKey fileKey, Supplier<String> changelog) {
-        return this.changelogs.computeIfAbsent(fileKey, key -> changelog.get());
+        return this.changelogs.load(fileKey, changelog);
+    }
+
+    public CompletableFuture<String> changelogAsync(FileKey fileKey, Supplier<CompletableFuture<String>> changelog) {
+        return this.changelogs.loadAsync(fileKey, changelog);
+    }
+
+    public Optional<String> cachedVersion(FileKey fileKey) {
+        return this.versions.getIfLoaded(fileKey);
     }
 
     public String version(FileKey fileKey, Supplier<String> version) {
-        return this.versions.computeIfAbsent(fileKey, key -> version.get());
+        return this.versions.load(fileKey, version);
+    }
+
+    public CompletableFuture<String> versionAsync(FileKey fileKey, Supplier<CompletableFuture<String>> version) {
+        return this.versions.loadAsync(fileKey, version);
+    }
+
+    public Optional<Instant> lastGenerated(String projectId) {
+        return Optional.ofNullable(this.generated.get(projectId));
+    }
+
+    public void generated(String projectId, Instant time) {
+        this.generated.merge(projectId, time, FileCache::latest);
+    }
+
+    // Includes failed attempts
+    public Optional<Instant> lastAttempted(String projectId) {
+        return Optional.ofNullable(this.attempted.get(projectId));
     }
 
-    public void read(Path path) {
+    public void attempted(String projectId, Instant time) {
+        this.attempted.merge(projectId, time, FileCache::latest);
+    }
+
+    private static Instant latest(Instant current, Instant incoming) {
+        return incoming.isAfter(current) ? incoming : current;
+    }
+
+    // Existing entries win, unless they only record a failure (invalid version, empty changelog)
+    public void merge(FileCache other) {
+        if (this.platform != other.platform) throw new IllegalArgumentException("Can't merge file caches of different platforms: " + this.platform + ", " + other.platform);
+        other.changelogs.snapshot().forEach((key, changelog) -> this.changelogs.merge(key, changelog, (current, incoming) -> current.isEmpty() ? incoming : current));
+        other.versions.snapshot().forEach((key, version) -> this.versions.merge(key, version, (current, incoming) -> VersionResolver.INVALID.equals(current) ? incoming : current));
+        other.generated.forEach(this::generated);
+        other.attempted.forEach(this::attempted);
+    }
+
+    void read(JsonObject json) {
+        this.changelogs.putAll(this.readMap(json.get("changelogs")));
+        this.versions.putAll(this.readMap(json.get("versions")));
+        // Not present in older version 5 caches
+        if (json.has("generated")) this.generated.putAll(this.readTimes(json.get("generated")));
+        if (json.has("attempted")) this.attempted.putAll(this.readTimes(json.get("attempted")));
+    }
+
+    void clear() {
         this.changelogs.clear();
         this.versions.clear();
-        if (Files.exists(path)) {
-            try (Reader reader = Files.newBufferedReader(path)) {
-                JsonObject json = UpdateCheckerGenerator.INTERNAL.fromJson(reader, JsonObject.class);
-                int cacheVersion = json.has("version") ? json.get("version").getAsInt() : 0;
-                String cachePlatform = json.has("platform") ? json.get("platform").getAsString() : null;
-                if (cacheVersion == FileCache.VERSION && Objects.equals(cachePlatform, this.platform.name().toLowerCase(Locale.ROOT))) {
-                    this.changelogs.putAll(this.readMap(json.get("changelogs")));
-                    this.versions.putAll(this.readMap(json.get("versions")));
-                }
-            } catch (IOException | JsonSyntaxException e) {
-                System.out.println("Failed to read file cache: " + e.getClass().getSimpleName() + ": " + e.getMessage());
-                this.changelogs.clear();
-                this.versions.clear();
-            }
-        }
+        this.generated.clear();
+        this.attempted.clear();
     }
 
     private Map<FileKey, String> readMap(JsonElement data) {
@@ -76,20 +115,19 @@ public class FileCache {
         return Map.entry(new FileKey(projectId, fileId), changelog);
     }
 
-    public void write(Path path) {
-        try {
-            if (Files.notExists(path.getParent())) Files.createDirectories(path.getParent());
-            try (Writer writer = Files.newBufferedWriter(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
-                JsonObject json = new JsonObject();
-                json.addProperty("version", FileCache.VERSION);
-                json.addProperty("platform", this.platform.name().toLowerCase(Locale.ROOT));
-                json.add("changelogs", this.writeMap(this.changelogs));
-                json.add("versions", this.writeMap(this.versions));
-                writer.write(UpdateCheckerGenerator.INTERNAL.toJson(json) + "\n");
-            }
-        } catch (IOException e) {
-            System.out.println("Failed to write file cache: " + e.getClass().getSimpleName() + ": " + e.getMessage());
-        }
+    private Map<String, Instant> readTimes(JsonElement data) {
+        return Streams.stream(data.getAsJsonArray())
+                .map(JsonElement::getAsJsonObject)
+                .collect(Collectors.toMap(entry -> entry.get("project").getAsString(), entry -> Instant.parse(entry.get("time").getAsString())));
+    }
+
+    JsonObject write() {
+        JsonObject json = new JsonObject();
+        json.add("changelogs", this.writeMap(this.changelogs.snapshot()));
+        json.add("versions", this.writeMap(this.versions.snapshot()));
+        json.add("generated", this.writeTimes(this.generated));
+        json.add("attempted", this.writeTimes(this.attempted));
+        return json;
     }
 
     private JsonElement writeMap(Map<FileKey, String> map) {
@@ -98,6 +136,17 @@ public class FileCache {
         return array;
     }
 
+    private JsonElement writeTimes(Map<String, Instant> times) {
+        JsonArray array = new JsonArray();
+        times.forEach((projectId, time) -> {
+            JsonObject data = new JsonObject();
+            data.addProperty("project", projectId);
+            data.addProperty("time", time.toString());
+            array.add(data);
+        });
+        return array;
+    }
+
     private JsonObject writeFile(Map.Entry<FileKey, String> entry) {
         JsonObject data = new JsonObject();
         data.addProperty("project", entry.getKey().projectId());
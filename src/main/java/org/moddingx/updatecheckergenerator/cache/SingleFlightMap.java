@@ -0,0 +1,113 @@
+package org.moddingx.updatecheckergenerator.cache;
+
+import org.moddingx.updatecheckergenerator.jfr.CacheLookupEvent;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+
+// Thread-safe map where only one load per key is in flight at a time. Other callers for the same key
+// wait for that load. Loads run outside the map locks, so they never block callers for unrelated keys.
+// Failed loads are not cached.
+class SingleFlightMap<K, V> {
+
+    private final String name;
+    private final Map<K, CompletableFuture<V>> map = new ConcurrentHashMap<>();
+
+    public SingleFlightMap(String name) {
+        this.name = name;
+    }
+
+    public boolean contains(K key) {
+        return this.map.containsKey(key);
+    }
+
+    // Does not wait for loads in flight
+    public Optional<V> getIfLoaded(K key) {
+        CompletableFuture<V> future = this.map.get(key);
+        if (future == null || !future.isDone() || future.isCompletedExceptionally()) return Optional.empty();
+        return Optional.of(future.join());
+    }
+
+    public V load(K key, Supplier<V> loader) {
+        try {
+            return this.loadAsync(key, () -> CompletableFuture.completedFuture(loader.get())).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException ex) throw ex;
+            if (e.getCause() instanceof Error ex) throw ex;
+            throw e;
+        }
+    }
+
+    public CompletableFuture<V> loadAsync(K key, Supplier<CompletableFuture<V>> loader) {
+        CompletableFuture<V> existing = this.map.get(key);
+        if (existing == null) {
+            CompletableFuture<V> future = new CompletableFuture<>();
+            existing = this.map.putIfAbsent(key, future);
+            if (existing == null) {
+                this.lookupEvent(key, false);
+                this.runLoad(key, future, loader);
+                return future;
+            }
+        }
+        this.lookupEvent(key, true);
+        return existing;
+    }
+
+    private void runLoad(K key, CompletableFuture<V> future, Supplier<CompletableFuture<V>> loader) {
+        CompletableFuture<V> loaded;
+        try {
+            loaded = loader.get();
+        } catch (RuntimeException | Error e) {
+            loaded = CompletableFuture.failedFuture(e);
+        }
+        loaded.whenComplete((value, ex) -> {
+            if (ex == null) {
+                future.complete(value);
+            } else {
+                this.map.remove(key, future);
+                future.completeExceptionally(ex);
+            }
+        });
+    }
+
+    private void lookupEvent(K key, boolean hit) {
+        CacheLookupEvent event = new CacheLookupEvent();
+        if (event.shouldCommit()) {
+            event.cache = this.name;
+            event.key = key.toString();
+            event.hit = hit;
+            event.commit();
+        }
+    }
+
+    // Resolves conflicts with completed values through the merge function, in-flight loads are kept.
+    public void merge(K key, V value, BinaryOperator<V> mergeFunction) {
+        this.map.merge(key, CompletableFuture.completedFuture(value), (current, incoming) -> {
+            if (!current.isDone() || current.isCompletedExceptionally()) return current;
+            return CompletableFuture.completedFuture(mergeFunction.apply(current.join(), value));
+        });
+    }
+
+    public void putAll(Map<K, V> values) {
+        values.forEach((key, value) -> this.map.put(key, CompletableFuture.completedFuture(value)));
+    }
+
+    public void clear() {
+        this.map.clear();
+    }
+
+    // All successfully loaded values
+    public Map<K, V> snapshot() {
+        Map<K, V> values = new HashMap<>();
+        this.map.forEach((key, future) -> {
+            if (future.isDone() && !future.isCompletedExceptionally()) values.put(key, future.join());
+        });
+        return values;
+    }
+}
@@ -0,0 +1,89 @@
+package org.moddingx.updatecheckergenerator.config;
+
+import jakarta.annotation.Nullable;
+import joptsimple.ValueConversionException;
+import org.moddingx.updatecheckergenerator.ModLoader;
+import org.moddingx.updatecheckergenerator.Platform;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+
+// explicitPlatform is set when the config line has a platform prefix
+public record ProjectEntry(Platform platform, boolean explicitPlatform, String projectId, Set<ModLoader> loaders, double priority) {
+
+    public static final double DEFAULT_PRIORITY = 1;
+
+    // Entries without a platform prefix or without loaders use the given defaults.
+    public static List<ProjectEntry> readConfig(Path path, @Nullable Platform defaultPlatform, Set<ModLoader> defaultLoaders) throws IOException {
+        List<ProjectEntry> entries = new ArrayList<>();
+        for (String line : Files.readAllLines(path)) {
+            String str = (line.contains("#") ? line.substring(0, line.indexOf('#')) : line).strip();
+            if (!str.isEmpty()) entries.add(parse(str, defaultPlatform, defaultLoaders));
+        }
+        return List.copyOf(entries);
+    }
+
+    // Explicit form of the entry, that reads back the same regardless of the defaults
+    public String toConfigLine() {
+        return this.platform.name().toLowerCase(Locale.ROOT) + ":" + this.projectId
+                + " loaders=" + this.loaders.stream().map(loader -> loader.id).sorted().collect(Collectors.joining(","))
+                + " priority=" + this.priority;
+    }
+
+    // [<platform>:]<project id> [loaders=<loader>,...] [priority=<weight>]
+    private static ProjectEntry parse(String line, @Nullable Platform defaultPlatform, Set<ModLoader> defaultLoaders) throws IOException {
+        String[] parts = line.split("\\s+");
+        Platform platform = defaultPlatform;
+        String projectId = parts[0];
+        boolean explicitPlatform = projectId.contains(":");
+        if (explicitPlatform) {
+            platform = platform(projectId.substring(0, projectId.indexOf(':')), line);
+            projectId = projectId.substring(projectId.indexOf(':') + 1);
+        }
+        if (platform == null) throw new IOException("No platform given for config line: " + line);
+        if (projectId.isEmpty()) throw new IOException("Missing project id in config line: " + line);
+
+        Set<ModLoader> loaders = defaultLoaders;
+        double priority = DEFAULT_PRIORITY;
+        for (int i = 1; i < parts.length; i++) {
+            int idx = parts[i].indexOf('=');
+            String key = idx < 0 ? parts[i] : parts[i].substring(0, idx);
+            String value = idx < 0 ? "" : parts[i].substring(idx + 1);
+            switch (key) {
+                case "loaders" -> loaders = loaders(value, line);
+                case "priority" -> {
+                    try {
+                        priority = Double.parseDouble(value);
+                    } catch (NumberFormatException e) {
+                        throw new IOException("Invalid priority in config line: " + line, e);
+                    }
+                    if (!(priority > 0) || Double.isInfinite(priority)) throw new IOException("Priority must be positive in config line: " + line);
+                }
+                default -> throw new IOException("Unknown property '" + key + "' in config line: " + line);
+            }
+        }
+        return new ProjectEntry(platform, explicitPlatform, projectId, loaders, priority);
+    }
+
+    private static Platform platform(String id, String line) throws IOException {
+        for (Platform platform : Platform.values()) {
+            if (platform.name().toLowerCase(Locale.ROOT).equals(id)) return platform;
+        }
+        throw new IOException("Unknown platform '" + id + "' in config line: " + line);
+    }
+
+    private static Set<ModLoader> loaders(String value, String line) throws IOException {
+        Set<ModLoader> loaders = EnumSet.noneOf(ModLoader.class);
+        for (String id : value.split(",")) {
+            try {
+                loaders.add(ModLoader.ARG.convert(id.strip()));
+            } catch (ValueConversionException e) {
+                throw new IOException(e.getMessage() + " (config line: " + line + ")", e);
+            }
+        }
+        return Collections.unmodifiableSet(loaders);
+    }
+}
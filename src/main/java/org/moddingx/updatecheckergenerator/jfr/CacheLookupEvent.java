@@ -0,0 +1,21 @@
+package org.moddingx.updatecheckergenerator.jfr;
+
+import jdk.jfr.*;
+
+@Name("org.moddingx.updatecheckergenerator.CacheLookup")
+@Label("Cache Lookup")
+@Description("A lookup in the file cache")
+@Category({"UpdateCheckerGenerator", "Cache"})
+@StackTrace(false)
+public class CacheLookupEvent extends Event {
+
+    @Label("Cache")
+    public String cache;
+
+    @Label("Key")
+    public String key;
+
+    @Label("Hit")
+    @Description("Whether the value was already present or being loaded")
+    public boolean hit;
+}
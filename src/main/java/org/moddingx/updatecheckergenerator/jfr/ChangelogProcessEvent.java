@@ -0,0 +1,16 @@
+package org.moddingx.updatecheckergenerator.jfr;
+
+import jdk.jfr.*;
+
+@Name("org.moddingx.updatecheckergenerator.ChangelogProcess")
+@Label("Changelog Processing")
+@Description("Conversion of a changelog to plain text")
+@Category({"UpdateCheckerGenerator", "Parsing"})
+public class ChangelogProcessEvent extends Event {
+
+    @Label("Input Length")
+    public int inputLength;
+
+    @Label("Output Length")
+    public int outputLength;
+}
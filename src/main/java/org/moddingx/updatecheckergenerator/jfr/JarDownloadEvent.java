@@ -0,0 +1,21 @@
+package org.moddingx.updatecheckergenerator.jfr;
+
+import jdk.jfr.*;
+
+@Name("org.moddingx.updatecheckergenerator.JarDownload")
+@Label("Jar Download")
+@Description("Download of a jar file to resolve its version. Reading stops once the version is known.")
+@Category({"UpdateCheckerGenerator", "Network"})
+public class JarDownloadEvent extends Event {
+
+    @Label("URL")
+    public String url;
+
+    @Label("Bytes")
+    @Description("Bytes read from the download")
+    @DataAmount
+    public long bytes;
+
+    @Label("Success")
+    public boolean success;
+}
@@ -0,0 +1,20 @@
+package org.moddingx.updatecheckergenerator.jfr;
+
+import jdk.jfr.*;
+
+@Name("org.moddingx.updatecheckergenerator.MetadataExtraction")
+@Label("Metadata Extraction")
+@Description("Extraction of the version from a metadata file in a jar")
+@Category({"UpdateCheckerGenerator", "Parsing"})
+public class MetadataExtractionEvent extends Event {
+
+    @Label("Entry")
+    public String entry;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    @Label("Success")
+    public boolean success;
+}
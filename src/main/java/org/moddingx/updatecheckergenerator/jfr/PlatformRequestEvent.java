@@ -0,0 +1,27 @@
+package org.moddingx.updatecheckergenerator.jfr;
+
+import jdk.jfr.*;
+
+@Name("org.moddingx.updatecheckergenerator.PlatformRequest")
+@Label("Platform Request")
+@Description("A request to the api of a modding platform")
+@Category({"UpdateCheckerGenerator", "Network"})
+public class PlatformRequestEvent extends Event {
+
+    @Label("Platform")
+    public String platform;
+
+    @Label("Route")
+    public String route;
+
+    @Label("Status")
+    @Description("HTTP status code of the response, 0 if unknown")
+    public int status;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    @Label("Success")
+    public boolean success;
+}
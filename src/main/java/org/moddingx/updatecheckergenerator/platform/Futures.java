@@ -0,0 +1,40 @@
+package org.moddingx.updatecheckergenerator.platform;
+
+import java.io.IOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+public class Futures {
+
+    // Waits for the future and rethrows its failure the way the blocking api would.
+    public static <T> T join(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException | CancellationException e) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof IOException ex) throw ex;
+            if (cause instanceof RuntimeException ex) throw ex;
+            if (cause instanceof Error ex) throw ex;
+            throw new IOException(cause);
+        }
+    }
+
+    // Runs a blocking action, for apis that have no asynchronous variant.
+    public static <T> CompletableFuture<T> supplyAsync(IOSupplier<T> action, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return action.get();
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    @FunctionalInterface
+    public interface IOSupplier<T> {
+
+        T get() throws IOException;
+    }
+}
@@ -5,18 +5,48 @@ import org.moddingx.updatecheckergenerator.ModLoader;
 import java.io.IOException;
 import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 public interface ModdingPlatform<T> {
     
-    ProjectData project(String projectId) throws IOException;
-    List<T> listFiles(String projectId, Set<ModLoader> loaders) throws IOException;
+    CompletableFuture<ProjectData> projectAsync(String projectId);
+    CompletableFuture<List<T>> listFilesAsync(String projectId, Set<ModLoader> loaders);
     
     FileKey key(T file);
     String fileName(T file);
     boolean isStable(T file);
     Set<String> gameVersions(T file);
     Instant fileDate(T file);
-    String changelog(T file) throws IOException;
+    CompletableFuture<String> changelogAsync(T file);
+    
+    // Bulk query for platforms that support it. May return only some of the changelogs,
+    // the remaining ones are queried through changelogAsync(T).
+    default CompletableFuture<Map<FileKey, String>> changelogsAsync(List<T> files) {
+        return CompletableFuture.completedFuture(Map.of());
+    }
+    
+    // Number of requests needed to query the changelogs of that many files
+    default int changelogRequests(int files) {
+        return files;
+    }
+    
     ResolvableVersion version(T file) throws IOException;
+    
+    default ProjectData project(String projectId) throws IOException {
+        return Futures.join(this.projectAsync(projectId));
+    }
+    
+    default List<T> listFiles(String projectId, Set<ModLoader> loaders) throws IOException {
+        return Futures.join(this.listFilesAsync(projectId, loaders));
+    }
+    
+    default String changelog(T file) throws IOException {
+        return Futures.join(this.changelogAsync(file));
+    }
+    
+    default Map<FileKey, String> changelogs(List<T> files) throws IOException {
+        return Futures.join(this.changelogsAsync(files));
+    }
 }
@@ -3,27 +3,40 @@ package org.moddingx.updatecheckergenerator.platform;
 import org.moddingx.updatecheckergenerator.cache.FileCache;
 import org.moddingx.updatecheckergenerator.version.VersionResolver;
 
+import java.io.IOException;
 import java.net.URL;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 
 public class ResolvableVersion {
     
-    private final Function<FileCache, Optional<String>> version;
+    private final Function<FileCache, CompletableFuture<Optional<String>>> version;
+    private final boolean requiresDownload;
     
-    private ResolvableVersion(Function<FileCache, Optional<String>> version) {
+    private ResolvableVersion(Function<FileCache, CompletableFuture<Optional<String>>> version, boolean requiresDownload) {
         this.version = version;
+        this.requiresDownload = requiresDownload;
     }
     
-    public Optional<String> version(FileCache cache) {
+    // Whether the file is downloaded to resolve the version, unless the version is already cached
+    public boolean requiresDownload() {
+        return this.requiresDownload;
+    }
+    
+    public CompletableFuture<Optional<String>> versionAsync(FileCache cache) {
         return this.version.apply(cache);
     }
     
+    public Optional<String> version(FileCache cache) throws IOException {
+        return Futures.join(this.versionAsync(cache));
+    }
+    
     public static ResolvableVersion of(String version) {
-        return new ResolvableVersion(cache -> Optional.of(version));
+        return new ResolvableVersion(cache -> CompletableFuture.completedFuture(Optional.of(version)), false);
     }
     
     public static <T> ResolvableVersion resolveBy(ModdingPlatform<T> platform, T file, URL downloadURL) {
-        return new ResolvableVersion(cache -> VersionResolver.getVersion(platform, file, downloadURL, cache));
+        return new ResolvableVersion(cache -> VersionResolver.getVersionAsync(platform, file, downloadURL, cache), true);
     }
 }
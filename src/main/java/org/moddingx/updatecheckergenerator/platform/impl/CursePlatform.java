@@ -6,7 +6,9 @@ import org.moddingx.cursewrapper.api.response.FileInfo;
 import org.moddingx.cursewrapper.api.response.ModLoader;
 import org.moddingx.cursewrapper.api.response.ProjectInfo;
 import org.moddingx.cursewrapper.api.response.ReleaseType;
+import org.moddingx.updatecheckergenerator.jfr.PlatformRequestEvent;
 import org.moddingx.updatecheckergenerator.platform.FileKey;
+import org.moddingx.updatecheckergenerator.platform.Futures;
 import org.moddingx.updatecheckergenerator.platform.ModdingPlatform;
 import org.moddingx.updatecheckergenerator.platform.ProjectData;
 import org.moddingx.updatecheckergenerator.platform.ResolvableVersion;
@@ -17,28 +19,36 @@ import java.net.URISyntaxException;
 import java.time.Instant;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 public class CursePlatform implements ModdingPlatform<FileInfo> {
     
     private final CurseWrapper api;
+    // CurseWrapper only has a blocking api
+    private final Executor executor;
 
     public CursePlatform() {
         this.api = new CurseWrapper(URI.create("https://curse.moddingx.org"));
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
     }
 
     @Override
-    public ProjectData project(String projectId) throws IOException {
-        ProjectInfo project = api.getProject(validateProjectId(projectId));
-        return new ProjectData(project.slug(), project.website().toString());
+    public CompletableFuture<ProjectData> projectAsync(String projectId) {
+        return this.request("project/" + projectId, () -> {
+            ProjectInfo project = api.getProject(validateProjectId(projectId));
+            return new ProjectData(project.slug(), project.website().toString());
+        });
     }
 
     @Override
-    public List<FileInfo> listFiles(String projectId, Set<org.moddingx.updatecheckergenerator.ModLoader> loaders) throws IOException {
+    public CompletableFuture<List<FileInfo>> listFilesAsync(String projectId, Set<org.moddingx.updatecheckergenerator.ModLoader> loaders) {
         ModLoader[] curseLoaders = loaders.stream().map(loader -> switch (loader) {
             case FORGE -> ModLoader.FORGE;
             case NEOFORGE -> ModLoader.NEOFORGE;
         }).toArray(ModLoader[]::new);
-        return api.getFiles(validateProjectId(projectId), FileFilter.loader(curseLoaders));
+        return this.request("project/" + projectId + "/files", () -> api.getFiles(validateProjectId(projectId), FileFilter.loader(curseLoaders)));
     }
 
     @Override
@@ -67,8 +77,8 @@ public class CursePlatform implements ModdingPlatform<FileInfo> {
     }
 
     @Override
-    public String changelog(FileInfo file) throws IOException {
-        return this.api.getChangelog(file.projectId(), file.fileId());
+    public CompletableFuture<String> changelogAsync(FileInfo file) {
+        return this.request("project/" + file.projectId() + "/changelog/" + file.fileId(), () -> this.api.getChangelog(file.projectId(), file.fileId()));
     }
 
     @Override
@@ -80,6 +90,25 @@ public class CursePlatform implements ModdingPlatform<FileInfo> {
         }
     }
 
+    private <T> CompletableFuture<T> request(String route, Futures.IOSupplier<T> action) {
+        return Futures.supplyAsync(() -> {
+            // CurseWrapper does not expose status codes and response sizes
+            PlatformRequestEvent event = new PlatformRequestEvent();
+            event.begin();
+            try {
+                T result = action.get();
+                event.success = true;
+                return result;
+            } finally {
+                if (event.shouldCommit()) {
+                    event.platform = "curseforge";
+                    event.route = route;
+                    event.commit();
+                }
+            }
+        }, this.executor);
+    }
+
     private int validateProjectId(String projectId) throws IOException {
         try {
             return Integer.parseInt(projectId);
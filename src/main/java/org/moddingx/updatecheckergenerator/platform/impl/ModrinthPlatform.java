@@ -1,10 +1,14 @@
 package org.moddingx.updatecheckergenerator.platform.impl;
 
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Streams;
 import com.google.gson.*;
 import org.moddingx.launcherlib.util.Either;
 import org.moddingx.updatecheckergenerator.ModLoader;
 import org.moddingx.updatecheckergenerator.UpdateCheckerGenerator;
+import org.moddingx.updatecheckergenerator.jfr.PlatformRequestEvent;
 import org.moddingx.updatecheckergenerator.platform.FileKey;
 import org.moddingx.updatecheckergenerator.platform.ModdingPlatform;
 import org.moddingx.updatecheckergenerator.platform.ProjectData;
@@ -19,6 +23,8 @@ import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -27,6 +33,9 @@ public class ModrinthPlatform implements ModdingPlatform<ModrinthVersion> {
     // Trailing slash is important, so URI#resolve works properly
     private static final URI BASE_URL = URI.create("https://api.modrinth.com/v2/");
     
+    // Keeps the request uri of bulk version queries at a reasonable length
+    private static final int CHANGELOG_BATCH_SIZE = 100;
+    
     private final HttpClient client;
 
     public ModrinthPlatform() {
@@ -34,9 +43,9 @@ public class ModrinthPlatform implements ModdingPlatform<ModrinthVersion> {
     }
 
     @Override
-    public ProjectData project(String projectId) throws IOException {
-        return withJson(() -> {
-            JsonObject json = request("project/" + URLEncoder.encode(projectId, StandardCharsets.UTF_8)).getAsJsonObject();
+    public CompletableFuture<ProjectData> projectAsync(String projectId) {
+        return withJson(request("project/" + URLEncoder.encode(projectId, StandardCharsets.UTF_8)), response -> {
+            JsonObject json = response.getAsJsonObject();
             return new ProjectData(
                     json.get("slug").getAsString(),
                     "https://modrinth.com/" + URLEncoder.encode(json.get("project_type").getAsString(), StandardCharsets.UTF_8) + "/" + URLEncoder.encode(json.get("slug").getAsString(), StandardCharsets.UTF_8)
@@ -45,14 +54,18 @@ public class ModrinthPlatform implements ModdingPlatform<ModrinthVersion> {
     }
 
     @Override
-    public List<ModrinthVersion> listFiles(String projectId, Set<ModLoader> loaders) throws IOException {
+    public CompletableFuture<List<ModrinthVersion>> listFilesAsync(String projectId, Set<ModLoader> loaders) {
         JsonArray loadersArray = new JsonArray();
         for (ModLoader loader : loaders) loadersArray.add(loader.id);
-        return withJson(() -> {
-            JsonArray array = request("project/" + URLEncoder.encode(projectId, StandardCharsets.UTF_8) + "/version", Map.of(
-                    "loaders", UpdateCheckerGenerator.INTERNAL.toJson(loadersArray)
-            )).getAsJsonArray();
+        return withJson(request("project/" + URLEncoder.encode(projectId, StandardCharsets.UTF_8) + "/version", Map.of(
+                "loaders", UpdateCheckerGenerator.INTERNAL.toJson(loadersArray),
+                "include_changelog", "false"
+        )), response -> {
+            JsonArray array = response.getAsJsonArray();
             List<ModrinthVersion> files = new ArrayList<>(array.size());
+            // Most versions share their game versions, so share the strings and sets between them
+            Interner<String> gameVersionNames = Interners.newStrongInterner();
+            Interner<Set<String>> gameVersionSets = Interners.newStrongInterner();
             for (JsonElement elem : array) {
                 JsonObject json = elem.getAsJsonObject();
                 files.add(new ModrinthVersion(
@@ -62,10 +75,10 @@ public class ModrinthPlatform implements ModdingPlatform<ModrinthVersion> {
                         json.get("version_number").getAsString(),
                         json.get("version_type").getAsString().toLowerCase(Locale.ROOT),
                         Instant.parse(json.get("date_published").getAsString()),
-                        Streams.stream(json.get("game_versions").getAsJsonArray())
+                        gameVersionSets.intern(Streams.stream(json.get("game_versions").getAsJsonArray())
                                 .map(JsonElement::getAsString)
-                                .collect(Collectors.toUnmodifiableSet()),
-                        (json.has("changelog") && !json.get("changelog").isJsonNull()) ? json.get("changelog").getAsString() : ""
+                                .map(gameVersionNames::intern)
+                                .collect(Collectors.toUnmodifiableSet()))
                 ));
             }
             return List.copyOf(files);
@@ -98,8 +111,41 @@ public class ModrinthPlatform implements ModdingPlatform<ModrinthVersion> {
     }
 
     @Override
-    public String changelog(ModrinthVersion file) throws IOException {
-        return file.changelog();
+    public CompletableFuture<String> changelogAsync(ModrinthVersion file) {
+        return withJson(request("version/" + URLEncoder.encode(file.versionId(), StandardCharsets.UTF_8)), response -> changelog(response.getAsJsonObject()));
+    }
+
+    @Override
+    public CompletableFuture<Map<FileKey, String>> changelogsAsync(List<ModrinthVersion> files) {
+        List<CompletableFuture<Map<FileKey, String>>> batches = new ArrayList<>();
+        for (List<ModrinthVersion> batch : Lists.partition(files, CHANGELOG_BATCH_SIZE)) {
+            JsonArray idArray = new JsonArray();
+            for (ModrinthVersion file : batch) idArray.add(file.versionId());
+            batches.add(withJson(request("versions", Map.of(
+                    "ids", UpdateCheckerGenerator.INTERNAL.toJson(idArray)
+            )), response -> {
+                Map<FileKey, String> changelogs = new HashMap<>();
+                for (JsonElement elem : response.getAsJsonArray()) {
+                    JsonObject json = elem.getAsJsonObject();
+                    changelogs.put(new FileKey(json.get("project_id").getAsString(), json.get("id").getAsString()), changelog(json));
+                }
+                return changelogs;
+            }).exceptionally(ex -> {
+                // Only the files of this batch fall back to single requests
+                System.err.println("Failed to query changelogs for " + batch.size() + " version(s): " + ex.getMessage());
+                return Map.of();
+            }));
+        }
+        return CompletableFuture.allOf(batches.toArray(CompletableFuture[]::new)).thenApply(v -> {
+            Map<FileKey, String> changelogs = new HashMap<>();
+            for (CompletableFuture<Map<FileKey, String>> batch : batches) changelogs.putAll(batch.join());
+            return Map.copyOf(changelogs);
+        });
+    }
+
+    @Override
+    public int changelogRequests(int files) {
+        return (files + CHANGELOG_BATCH_SIZE - 1) / CHANGELOG_BATCH_SIZE;
     }
 
     @Override
@@ -107,21 +153,27 @@ public class ModrinthPlatform implements ModdingPlatform<ModrinthVersion> {
         return ResolvableVersion.of(file.fileVersion());
     }
 
-    private <T> T withJson(IOSupplier<T> action) throws IOException {
-        try {
-            return action.get();
-        } catch (JsonSyntaxException e) {
-            throw new IOException("Invalid json structure", e);
-        } catch (JsonParseException e) {
-            throw new IOException("Invalid json", e);
-        }
+    private static String changelog(JsonObject json) {
+        return (json.has("changelog") && !json.get("changelog").isJsonNull()) ? json.get("changelog").getAsString() : "";
+    }
+
+    private <T> CompletableFuture<T> withJson(CompletableFuture<JsonElement> response, Function<JsonElement, T> action) {
+        return response.thenApply(json -> {
+            try {
+                return action.apply(json);
+            } catch (JsonSyntaxException e) {
+                throw new CompletionException(new IOException("Invalid json structure", e));
+            } catch (JsonParseException e) {
+                throw new CompletionException(new IOException("Invalid json", e));
+            }
+        });
     }
     
-    private JsonElement request(String route) throws IOException {
+    private CompletableFuture<JsonElement> request(String route) {
         return request(route, Map.of());
     }
     
-    private JsonElement request(String route, Map<String, String> query) throws IOException {
+    private CompletableFuture<JsonElement> request(String route, Map<String, String> query) {
         String routeStr = route.startsWith("/") ? route.substring(1) : route;
         String queryStr = "";
         if (!query.isEmpty()) {
@@ -130,33 +182,38 @@ public class ModrinthPlatform implements ModdingPlatform<ModrinthVersion> {
                     .collect(Collectors.joining("&", "?", ""));
         }
         URI req = BASE_URL.resolve(routeStr + queryStr);
-        try {
-            return client.<Either<JsonElement, IOException>>send(HttpRequest.newBuilder().GET()
-                            .uri(req)
-                            .header("Accept", "application/json")
-                            .header("User-Agent", "ModdingX/UpdateCheckerGenerator")
-                            .build(), 
-                    resp -> {
-                        if ((resp.statusCode() / 100) == 2 && resp.statusCode() != 204) {
-                            return HttpResponse.BodySubscribers.mapping(
-                                    HttpResponse.BodySubscribers.ofString(StandardCharsets.UTF_8),
-                                    str -> Either.tryWith(() -> UpdateCheckerGenerator.INTERNAL.fromJson(str, JsonElement.class))
-                                            .mapRight(ex -> new IOException("Failed to parse json response from modrinth api", ex))
-                            );
-                        } else {
-                            return HttpResponse.BodySubscribers.replacing(Either.right(new IOException("HTTP Status Code: " + resp.statusCode())));
-                        }
+        PlatformRequestEvent event = new PlatformRequestEvent();
+        event.begin();
+        event.platform = "modrinth";
+        event.route = routeStr;
+        return client.<Either<JsonElement, IOException>>sendAsync(HttpRequest.newBuilder().GET()
+                        .uri(req)
+                        .header("Accept", "application/json")
+                        .header("User-Agent", "ModdingX/UpdateCheckerGenerator")
+                        .build(), 
+                resp -> {
+                    event.status = resp.statusCode();
+                    if ((resp.statusCode() / 100) == 2 && resp.statusCode() != 204) {
+                        return HttpResponse.BodySubscribers.mapping(
+                                HttpResponse.BodySubscribers.ofByteArray(),
+                                data -> {
+                                    event.bytes = data.length;
+                                    return Either.tryWith(() -> UpdateCheckerGenerator.INTERNAL.fromJson(new String(data, StandardCharsets.UTF_8), JsonElement.class))
+                                            .mapRight(ex -> new IOException("Failed to parse json response from modrinth api", ex));
+                                }
+                        );
+                    } else {
+                        return HttpResponse.BodySubscribers.replacing(Either.right(new IOException("HTTP Status Code: " + resp.statusCode())));
                     }
-            ).body().getOrThrow(Function.identity(), Function.identity());
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new IOException("Interrupted", e);
-        }
-    }
-    
-    @FunctionalInterface
-    private interface IOSupplier<T> {
-        
-        T get() throws IOException;
+                }
+        ).thenApply(resp -> {
+            try {
+                JsonElement json = resp.body().getOrThrow(Function.identity(), Function.identity());
+                event.success = true;
+                return json;
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }).whenComplete((json, ex) -> event.commit());
     }
 }
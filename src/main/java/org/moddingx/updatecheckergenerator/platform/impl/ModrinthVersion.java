@@ -10,6 +10,5 @@ public record ModrinthVersion(
         String fileVersion,
         String releaseType,
         Instant date,
-        Set<String> gameVersions,
-        String changelog
+        Set<String> gameVersions
 ) {}
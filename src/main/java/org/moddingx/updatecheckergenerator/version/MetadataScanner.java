@@ -0,0 +1,357 @@
+package org.moddingx.updatecheckergenerator.version;
+
+import com.google.gson.Strictness;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import jakarta.annotation.Nullable;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+// Minimal scanners that only extract the version from mod metadata files, without building a full document.
+class MetadataScanner {
+
+    private static final String IMPLEMENTATION_VERSION = "Implementation-Version";
+
+    // Returns null if the file uses toml features the scanner does not understand.
+    // In that case, the caller should fall back to a full toml parser.
+    @Nullable
+    static TomlResult modsTomlVersion(String text) {
+        try {
+            return new TomlScanner(text).scan();
+        } catch (UnsupportedTomlException e) {
+            return null;
+        }
+    }
+
+    static String legacyVersion(String text) throws IOException {
+        try (JsonReader reader = new JsonReader(new StringReader(text))) {
+            reader.setStrictness(Strictness.LENIENT);
+            String version;
+            switch (reader.peek()) {
+                case BEGIN_ARRAY -> {
+                    reader.beginArray();
+                    if (!reader.hasNext()) throw new IllegalStateException("No mods defined in mcmod.info");
+                    version = legacyModVersion(reader);
+                    if (reader.hasNext()) throw new IllegalStateException("Multiple mods defined in mcmod.info");
+                    reader.endArray();
+                }
+                case BEGIN_OBJECT -> version = legacyModVersion(reader);
+                default -> throw new IllegalStateException("Invalid mcmod.info file");
+            }
+            if (reader.peek() != JsonToken.END_DOCUMENT) throw new IllegalStateException("Trailing data in mcmod.info");
+            if (version == null) throw new IllegalStateException("No version in mcmod.info");
+            return version;
+        }
+    }
+
+    @Nullable
+    private static String legacyModVersion(JsonReader reader) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) throw new IllegalStateException("Invalid mod in mcmod.info");
+        String version = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if ("version".equals(reader.nextName())) {
+                version = switch (reader.peek()) {
+                    case STRING, NUMBER -> reader.nextString();
+                    case BOOLEAN -> Boolean.toString(reader.nextBoolean());
+                    default -> throw new IllegalStateException("Invalid version in mcmod.info");
+                };
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return version;
+    }
+
+    @Nullable
+    static String manifestVersion(String text) {
+        int idx = 0;
+        while (idx < text.length()) {
+            int end = idx;
+            while (end < text.length() && text.charAt(end) != '\n' && text.charAt(end) != '\r') end += 1;
+            int start = idx;
+            while (start < end && isRegexSpace(text.charAt(start))) start += 1;
+            if (text.startsWith(IMPLEMENTATION_VERSION, start)) {
+                int pos = start + IMPLEMENTATION_VERSION.length();
+                while (pos < end && isRegexSpace(text.charAt(pos))) pos += 1;
+                if (pos < end && text.charAt(pos) == ':') {
+                    return text.substring(pos + 1, end).strip();
+                }
+            }
+            idx = end + 1;
+        }
+        return null;
+    }
+
+    // Same characters as \s in java regex.
+    private static boolean isRegexSpace(char chr) {
+        return chr == ' ' || chr == '\t' || chr == '\n' || chr == 0x0B || chr == '\f' || chr == '\r';
+    }
+
+    // modCount is the amount of [[mods]] tables, version the version key of the last one (may be null)
+    record TomlResult(int modCount, @Nullable String version) {}
+
+    private static class TomlScanner {
+
+        private final String text;
+        private int pos;
+
+        private TomlScanner(String text) {
+            this.text = text;
+            this.pos = 0;
+        }
+
+        private TomlResult scan() {
+            int modCount = 0;
+            boolean inRoot = true;
+            boolean inMods = false;
+            String version = null;
+            while (true) {
+                this.skipBlank(true);
+                if (this.eof()) break;
+                if (this.peek() == '[') {
+                    boolean arrayTable = this.text.startsWith("[[", this.pos);
+                    this.pos += arrayTable ? 2 : 1;
+                    List<String> path = this.key(arrayTable ? "]]" : "]");
+                    this.pos += arrayTable ? 2 : 1;
+                    inRoot = false;
+                    inMods = arrayTable && path.equals(List.of("mods"));
+                    // Other tables below mods are left to the full parser
+                    if (!inMods && path.getFirst().equals("mods")) throw new UnsupportedTomlException();
+                    if (inMods) {
+                        modCount += 1;
+                        version = null;
+                    }
+                } else {
+                    List<String> path = this.key("=");
+                    this.pos += 1;
+                    this.skipBlank(false);
+                    // mods defined by a key (for example as an inline array of tables) are left to the full parser
+                    if (inRoot && path.getFirst().equals("mods")) throw new UnsupportedTomlException();
+                    if (inMods && path.equals(List.of("version"))) {
+                        if (version != null) throw new UnsupportedTomlException();
+                        version = this.stringValue();
+                    } else {
+                        this.skipValue();
+                    }
+                }
+                this.endOfLine();
+            }
+            return new TomlResult(modCount, version);
+        }
+
+        private List<String> key(String terminator) {
+            List<String> path = new ArrayList<>();
+            while (true) {
+                this.skipBlank(false);
+                if (this.eof()) throw new UnsupportedTomlException();
+                char chr = this.peek();
+                if (chr == '"') {
+                    path.add(this.basicString());
+                } else if (chr == '\'') {
+                    path.add(this.literalString());
+                } else {
+                    int start = this.pos;
+                    while (!this.eof() && isBareKeyChar(this.peek())) this.pos += 1;
+                    if (start == this.pos) throw new UnsupportedTomlException();
+                    path.add(this.text.substring(start, this.pos));
+                }
+                this.skipBlank(false);
+                if (this.text.startsWith(terminator, this.pos)) return path;
+                if (this.eof() || this.peek() != '.') throw new UnsupportedTomlException();
+                this.pos += 1;
+            }
+        }
+
+        private String stringValue() {
+            if (this.eof()) throw new UnsupportedTomlException();
+            // Multiline strings and non-string values are left to the full parser
+            if (this.text.startsWith("\"\"\"", this.pos) || this.text.startsWith("'''", this.pos)) throw new UnsupportedTomlException();
+            return switch (this.peek()) {
+                case '"' -> this.basicString();
+                case '\'' -> this.literalString();
+                default -> throw new UnsupportedTomlException();
+            };
+        }
+
+        private void skipValue() {
+            if (this.eof()) throw new UnsupportedTomlException();
+            if (this.text.startsWith("\"\"\"", this.pos)) {
+                this.multilineString("\"\"\"", true);
+                return;
+            }
+            if (this.text.startsWith("'''", this.pos)) {
+                this.multilineString("'''", false);
+                return;
+            }
+            switch (this.peek()) {
+                case '"' -> this.basicString();
+                case '\'' -> this.literalString();
+                case '[' -> {
+                    this.pos += 1;
+                    while (true) {
+                        this.skipBlank(true);
+                        if (this.eof()) throw new UnsupportedTomlException();
+                        if (this.peek() == ']') break;
+                        this.skipValue();
+                        this.skipBlank(true);
+                        if (this.eof()) throw new UnsupportedTomlException();
+                        if (this.peek() == ',') {
+                            this.pos += 1;
+                        } else if (this.peek() != ']') {
+                            throw new UnsupportedTomlException();
+                        }
+                    }
+                    this.pos += 1;
+                }
+                case '{' -> {
+                    this.pos += 1;
+                    this.skipBlank(false);
+                    if (!this.eof() && this.peek() == '}') {
+                        this.pos += 1;
+                        return;
+                    }
+                    while (true) {
+                        this.key("=");
+                        this.pos += 1;
+                        this.skipBlank(false);
+                        this.skipValue();
+                        this.skipBlank(false);
+                        if (this.eof()) throw new UnsupportedTomlException();
+                        if (this.peek() == '}') break;
+                        if (this.peek() != ',') throw new UnsupportedTomlException();
+                        this.pos += 1;
+                    }
+                    this.pos += 1;
+                }
+                default -> {
+                    int start = this.pos;
+                    while (!this.eof() && isScalarChar(this.peek())) this.pos += 1;
+                    if (start == this.pos) throw new UnsupportedTomlException();
+                }
+            }
+        }
+
+        private String basicString() {
+            StringBuilder sb = new StringBuilder();
+            this.pos += 1;
+            while (true) {
+                if (this.eof()) throw new UnsupportedTomlException();
+                char chr = this.text.charAt(this.pos++);
+                if (chr == '"') return sb.toString();
+                if (chr == '\n' || chr == '\r') throw new UnsupportedTomlException();
+                if (chr != '\\') {
+                    sb.append(chr);
+                    continue;
+                }
+                if (this.eof()) throw new UnsupportedTomlException();
+                char escape = this.text.charAt(this.pos++);
+                switch (escape) {
+                    case 'b' -> sb.append('\b');
+                    case 't' -> sb.append('\t');
+                    case 'n' -> sb.append('\n');
+                    case 'f' -> sb.append('\f');
+                    case 'r' -> sb.append('\r');
+                    case '"' -> sb.append('"');
+                    case '\\' -> sb.append('\\');
+                    case 'u' -> sb.appendCodePoint(this.unicodeEscape(4));
+                    case 'U' -> sb.appendCodePoint(this.unicodeEscape(8));
+                    default -> throw new UnsupportedTomlException();
+                }
+            }
+        }
+
+        private int unicodeEscape(int length) {
+            if (this.pos + length > this.text.length()) throw new UnsupportedTomlException();
+            try {
+                int codePoint = Integer.parseInt(this.text, this.pos, this.pos + length, 16);
+                if (!Character.isValidCodePoint(codePoint)) throw new UnsupportedTomlException();
+                this.pos += length;
+                return codePoint;
+            } catch (NumberFormatException e) {
+                throw new UnsupportedTomlException();
+            }
+        }
+
+        private String literalString() {
+            int start = this.pos + 1;
+            int end = start;
+            while (end < this.text.length() && this.text.charAt(end) != '\'') {
+                if (this.text.charAt(end) == '\n' || this.text.charAt(end) == '\r') throw new UnsupportedTomlException();
+                end += 1;
+            }
+            if (end >= this.text.length()) throw new UnsupportedTomlException();
+            this.pos = end + 1;
+            return this.text.substring(start, end);
+        }
+
+        private void multilineString(String delimiter, boolean escapes) {
+            this.pos += delimiter.length();
+            while (true) {
+                if (this.eof()) throw new UnsupportedTomlException();
+                if (escapes && this.peek() == '\\') {
+                    this.pos += 2;
+                } else if (this.text.startsWith(delimiter, this.pos)) {
+                    this.pos += delimiter.length();
+                    // Up to two quotes directly before the closing delimiter belong to the string
+                    while (!this.eof() && this.peek() == delimiter.charAt(0)) this.pos += 1;
+                    return;
+                } else {
+                    this.pos += 1;
+                }
+            }
+        }
+
+        private void skipBlank(boolean newlines) {
+            while (!this.eof()) {
+                char chr = this.peek();
+                if (chr == ' ' || chr == '\t' || (newlines && (chr == '\n' || chr == '\r'))) {
+                    this.pos += 1;
+                } else if (chr == '#') {
+                    while (!this.eof() && this.peek() != '\n') this.pos += 1;
+                } else {
+                    return;
+                }
+            }
+        }
+
+        private void endOfLine() {
+            this.skipBlank(false);
+            if (this.eof()) return;
+            if (this.text.startsWith("\r\n", this.pos)) {
+                this.pos += 2;
+            } else if (this.peek() == '\n') {
+                this.pos += 1;
+            } else {
+                throw new UnsupportedTomlException();
+            }
+        }
+
+        private boolean eof() {
+            return this.pos >= this.text.length();
+        }
+
+        private char peek() {
+            return this.text.charAt(this.pos);
+        }
+
+        private static boolean isBareKeyChar(char chr) {
+            return (chr >= 'A' && chr <= 'Z') || (chr >= 'a' && chr <= 'z') || (chr >= '0' && chr <= '9') || chr == '_' || chr == '-';
+        }
+
+        private static boolean isScalarChar(char chr) {
+            return chr != ' ' && chr != '\t' && chr != '\n' && chr != '\r' && chr != ',' && chr != ']' && chr != '}' && chr != '#';
+        }
+    }
+
+    private static class UnsupportedTomlException extends RuntimeException {
+
+        private UnsupportedTomlException() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -1,11 +1,11 @@
 package org.moddingx.updatecheckergenerator.version;
 
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
+import com.google.common.io.CountingInputStream;
 import com.moandjiezana.toml.Toml;
 import jakarta.annotation.Nullable;
-import org.moddingx.updatecheckergenerator.UpdateCheckerGenerator;
 import org.moddingx.updatecheckergenerator.cache.FileCache;
+import org.moddingx.updatecheckergenerator.jfr.JarDownloadEvent;
+import org.moddingx.updatecheckergenerator.jfr.MetadataExtractionEvent;
 import org.moddingx.updatecheckergenerator.platform.FileKey;
 import org.moddingx.updatecheckergenerator.platform.ModdingPlatform;
 
@@ -13,17 +13,18 @@ import java.io.*;
 import java.lang.module.InvalidModuleDescriptorException;
 import java.lang.module.ModuleDescriptor;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 import java.util.function.Function;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.stream.Stream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
 public class VersionResolver {
 
-    private static final Pattern MANIFEST_REGEX = Pattern.compile("^\\s*Implementation-Version\\s*:\\s*(.*?)\\s*$");
+    public static final String INVALID = "INVALID";
 
     private static final String MOD_INFO_NEOFORGE_TOML = "META-INF/neoforge.mods.toml";
     private static final String MOD_INFO_TOML = "META-INF/mods.toml";
@@ -35,50 +36,68 @@ public class VersionResolver {
             MOD_INFO_NEOFORGE_TOML, MOD_INFO_TOML, MOD_INFO_LEGACY, JAR_MANIFEST, MODULE_DESCRIPTOR
     );
     
-    public static <T> Optional<String> getVersion(ModdingPlatform<T> platform, T file, URL downloadURL, FileCache cache) {
+    // Jar downloads block while reading the zip stream, virtual threads keep that cheap
+    private static final Executor EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+    
+    public static <T> CompletableFuture<Optional<String>> getVersionAsync(ModdingPlatform<T> platform, T file, URL downloadURL, FileCache cache) {
         FileKey key = platform.key(file);
-        String resolved = cache.version(key, () -> {
+        return cache.versionAsync(key, () -> CompletableFuture.supplyAsync(() -> {
             try {
                 return getVersionFromMetadata(downloadURL);
             } catch (Exception e) {
                 System.err.println("Failed to get version for '" + platform.fileName(file) + "'");
                 e.printStackTrace();
-                return "INVALID";
+                return INVALID;
+            }
+        }, EXECUTOR)).thenApply(resolved -> {
+            if (resolved.equals(INVALID)) {
+                return Optional.empty();
+            } else {
+                return Optional.of(resolved);
             }
         });
-        if (resolved.equals("INVALID")) {
-            return Optional.empty();
-        } else {
-            return Optional.of(resolved);
-        }
     }
 
     private static String getVersionFromMetadata(URL file) throws IOException {
         Map<String, byte[]> dataMap = new HashMap<>();
-        try (ZipInputStream zin = new ZipInputStream(file.openStream())) {
-            ZipEntry entry = zin.getNextEntry();
-            while (entry != null) {
-                String name = entry.getName().startsWith("/") ? entry.getName().substring(1) : entry.getName();
-                if (FILE_NAMES.contains(name)) dataMap.put(name, zin.readAllBytes());
-                entry = zin.getNextEntry();
+        RuntimeException collect = new RuntimeException("Could not resolve version");
+        JarDownloadEvent event = new JarDownloadEvent();
+        event.begin();
+        event.url = file.toString();
+        try (CountingInputStream in = new CountingInputStream(file.openStream()); ZipInputStream zin = new ZipInputStream(in)) {
+            try {
+                ZipEntry entry = zin.getNextEntry();
+                while (entry != null) {
+                    String name = entry.getName().startsWith("/") ? entry.getName().substring(1) : entry.getName();
+                    if (MOD_INFO_NEOFORGE_TOML.equals(name)) {
+                        // Highest priority, so there is no need to read the rest of the jar, if it resolves
+                        String ver = processStrategy(MOD_INFO_NEOFORGE_TOML, zin.readAllBytes(), collect, data -> VersionResolver.versionFromToml(data, MOD_INFO_NEOFORGE_TOML));
+                        if (ver != null) {
+                            event.success = true;
+                            return ver;
+                        }
+                    } else if (FILE_NAMES.contains(name)) {
+                        dataMap.put(name, zin.readAllBytes());
+                    }
+                    entry = zin.getNextEntry();
+                }
+                event.success = true;
+            } finally {
+                event.bytes = in.getCount();
+                event.commit();
             }
         }
-        
-        RuntimeException collect = new RuntimeException("Could not resolve version");
-        
-        String ver = processStrategy(dataMap, MOD_INFO_NEOFORGE_TOML, collect, data -> VersionResolver.versionFromToml(data, MOD_INFO_NEOFORGE_TOML));
-        if (ver != null) return ver;
 
-        ver = processStrategy(dataMap, MOD_INFO_TOML, collect, data -> VersionResolver.versionFromToml(data, MOD_INFO_TOML));
+        String ver = processStrategy(MOD_INFO_TOML, dataMap.get(MOD_INFO_TOML), collect, data -> VersionResolver.versionFromToml(data, MOD_INFO_TOML));
         if (ver != null) return ver;
         
-        ver = processStrategy(dataMap, MOD_INFO_LEGACY, collect, VersionResolver::versionFromLegacy);
+        ver = processStrategy(MOD_INFO_LEGACY, dataMap.get(MOD_INFO_LEGACY), collect, VersionResolver::versionFromLegacy);
         if (ver != null) return ver;
         
-        ver = processStrategy(dataMap, JAR_MANIFEST, collect, VersionResolver::versionFromManifest);
+        ver = processStrategy(JAR_MANIFEST, dataMap.get(JAR_MANIFEST), collect, VersionResolver::versionFromManifest);
         if (ver != null) return ver;
         
-        ver = processStrategy(dataMap, MODULE_DESCRIPTOR, collect, VersionResolver::versionFromModule);
+        ver = processStrategy(MODULE_DESCRIPTOR, dataMap.get(MODULE_DESCRIPTOR), collect, VersionResolver::versionFromModule);
         if (ver != null) return ver;
         
         if (collect.getSuppressed().length == 0) {
@@ -89,21 +108,43 @@ public class VersionResolver {
     }
     
     @Nullable
-    private static String processStrategy(Map<String, byte[]> dataMap, String key, RuntimeException collect, Function<byte[], String> resolver) {
-        if (dataMap.containsKey(key)) {
+    private static String processStrategy(String entry, @Nullable byte[] data, RuntimeException collect, Function<byte[], String> resolver) {
+        if (data != null) {
+            MetadataExtractionEvent event = new MetadataExtractionEvent();
+            event.begin();
             try {
-                return resolver.apply(dataMap.get(key));
+                String version = resolver.apply(data);
+                event.success = true;
+                return version;
             } catch (Exception e) {
                 collect.addSuppressed(e);
                 return null;
+            } finally {
+                if (event.shouldCommit()) {
+                    event.entry = entry;
+                    event.bytes = data.length;
+                    event.commit();
+                }
             }
         } else {
             return null;
         }
     }
 
-    private static String versionFromToml(byte[] data, String fileName) {
-        Toml toml = new Toml().read(new StringReader(text(data)));
+    static String versionFromToml(byte[] data, String fileName) {
+        String text = new String(data, StandardCharsets.UTF_8);
+        MetadataScanner.TomlResult result = MetadataScanner.modsTomlVersion(text);
+        if (result == null) return versionFromFullToml(text, fileName);
+        if (result.modCount() == 0) throw new IllegalStateException("No mods in " + fileName);
+        if (result.modCount() != 1) throw new IllegalStateException("Multiple mods in " + fileName);
+        if (result.version() == null) throw new IllegalStateException("No version in " + fileName);
+        String version = result.version().strip();
+        if (version.startsWith("$")) throw new IllegalStateException("Version variable in " + fileName);
+        return version;
+    }
+
+    private static String versionFromFullToml(String text, String fileName) {
+        Toml toml = new Toml().read(new StringReader(text));
         List<Toml> tables = toml.getTables("mods");
         if (tables.isEmpty()) throw new IllegalStateException("No mods in " + fileName);
         if (tables.size() != 1) throw new IllegalStateException("Multiple mods in " + fileName);
@@ -112,35 +153,20 @@ public class VersionResolver {
         return version;
     }
 
-    private static String versionFromLegacy(byte[] data) {
-        JsonElement json = UpdateCheckerGenerator.GSON.fromJson(text(data), JsonElement.class);
-        JsonObject modObj;
-        if (json.isJsonArray()) {
-            if (json.getAsJsonArray().size() == 1) {
-                modObj = json.getAsJsonArray().get(0).getAsJsonObject();
-            } else if (json.getAsJsonArray().isEmpty()) {
-                throw new IllegalStateException("No mods defined in mcmod.info");
-            } else {
-                throw new IllegalStateException("Multiple mods defined in mcmod.info");
-            }
-        } else if (json.isJsonObject()) {
-            modObj = json.getAsJsonObject();
-        } else {
-            throw new IllegalStateException("Invalid mcmod.info file");
+    static String versionFromLegacy(byte[] data) {
+        try {
+            String version = MetadataScanner.legacyVersion(new String(data, StandardCharsets.UTF_8)).strip();
+            if (version.startsWith("$")) throw new IllegalStateException("Version variable in mcmod.info");
+            return version;
+        } catch (IOException e) {
+            throw new IllegalStateException("Invalid mcmod.info file", e);
         }
-        String version = modObj.get("version").getAsString().strip();
-        if (version.startsWith("$")) throw new IllegalStateException("Version variable in mcmod.info");
-        return version;
     }
 
-    private static String versionFromManifest(byte[] data) {
-        return Arrays.stream(text(data).split("\n"))
-                .flatMap(str -> {
-                    Matcher match = MANIFEST_REGEX.matcher(str);
-                    return match.matches() ? Stream.of(match.group(1).strip()) : Stream.empty();
-                })
-                .findFirst()
-                .orElseThrow(() -> new IllegalStateException("No Implementation-Version in jar manifest"));
+    static String versionFromManifest(byte[] data) {
+        String version = MetadataScanner.manifestVersion(new String(data, StandardCharsets.UTF_8));
+        if (version == null) throw new IllegalStateException("No Implementation-Version in jar manifest");
+        return version;
     }
 
     private static String versionFromModule(byte[] file) {
@@ -153,12 +179,4 @@ public class VersionResolver {
             throw new IllegalStateException("Failed to read module descriptor", e);
         }
     }
-
-    private static String text(byte[] data) {
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(data)))) {
-            return String.join("\n", reader.lines().toList());
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
-    }
 }
@@ -0,0 +1,110 @@
+package org.moddingx.updatecheckergenerator.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+// Contention benchmark for SingleFlightMap. Every load sleeps to simulate network I/O.
+// Arguments: [threads] [keys] [load millis] [iterations]
+public class SingleFlightBenchmark {
+
+    private final int threads;
+    private final int keys;
+    private final int loadMillis;
+    private final AtomicInteger loads = new AtomicInteger();
+    // Loads run on their own threads like network requests, so they don't compete with the lookup threads
+    private final ExecutorService loadExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable);
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private SingleFlightBenchmark(int threads, int keys, int loadMillis) {
+        this.threads = threads;
+        this.keys = keys;
+        this.loadMillis = loadMillis;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        int keys = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int loadMillis = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        int iterations = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+        SingleFlightBenchmark benchmark = new SingleFlightBenchmark(threads, keys, loadMillis);
+        System.out.println(threads + " threads, " + keys + " keys, " + loadMillis + " ms per load, " + iterations + " iterations");
+        for (int i = 0; i <= iterations; i++) {
+            // The first iteration is a warm-up
+            String prefix = i == 0 ? "warm-up " : "#" + i + " ";
+            benchmark.run(prefix + "same keys, single-flight map", benchmark::singleFlight, true);
+            benchmark.run(prefix + "same keys, locked map", benchmark::lockedMap, true);
+            benchmark.run(prefix + "distinct keys, single-flight map", benchmark::singleFlight, false);
+            benchmark.run(prefix + "distinct keys, locked map", benchmark::lockedMap, false);
+            benchmark.run(prefix + "cached keys, single-flight map", benchmark::cachedSingleFlight, true);
+        }
+    }
+
+    // With shared keys, all threads look up the same keys. Otherwise every thread has its own keys.
+    private void run(String name, IntFunction<Lookup> factory, boolean shared) throws Exception {
+        Lookup lookup = factory.apply(this.keys);
+        this.loads.set(0);
+        ExecutorService executor = Executors.newFixedThreadPool(this.threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < this.threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int k = 0; k < this.keys; k++) {
+                        lookup.get(shared ? k : thread * this.keys + k);
+                    }
+                    return null;
+                }));
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) future.get();
+            double millis = (System.nanoTime() - begin) / 1_000_000d;
+            int lookups = this.threads * this.keys;
+            System.out.printf("%-44s %9.1f ms, %7d loads, %10.0f lookups/s%n", name, millis, this.loads.get(), lookups / (millis / 1000));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private String load(int key) {
+        this.loads.incrementAndGet();
+        try {
+            Thread.sleep(this.loadMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return Integer.toString(key);
+    }
+
+    private Lookup singleFlight(int keys) {
+        SingleFlightMap<Integer, String> map = new SingleFlightMap<>("benchmark");
+        return key -> map.loadAsync(key, () -> CompletableFuture.supplyAsync(() -> this.load(key), this.loadExecutor)).join();
+    }
+
+    private Lookup cachedSingleFlight(int keys) {
+        SingleFlightMap<Integer, String> map = new SingleFlightMap<>("benchmark");
+        for (int key = 0; key < keys; key++) map.merge(key, Integer.toString(key), (current, incoming) -> current);
+        return key -> map.loadAsync(key, () -> CompletableFuture.supplyAsync(() -> this.load(key), this.loadExecutor)).join();
+    }
+
+    // The previous approach: computeIfAbsent on a map guarded by a single lock, loading inside the lock
+    private Lookup lockedMap(int keys) {
+        Map<Integer, String> map = Collections.synchronizedMap(new HashMap<>());
+        return key -> map.computeIfAbsent(key, this::load);
+    }
+
+    private interface Lookup {
+        String get(int key);
+    }
+}
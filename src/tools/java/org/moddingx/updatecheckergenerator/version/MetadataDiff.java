@@ -0,0 +1,181 @@
+package org.moddingx.updatecheckergenerator.version;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.moandjiezana.toml.Toml;
+import org.moddingx.updatecheckergenerator.UpdateCheckerGenerator;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+// Compares the metadata scanners against the full parsers they replaced (toml4j, Gson, regex).
+// Runs a set of built-in samples and the metadata of all jars in the given files and directories.
+public class MetadataDiff {
+
+    private static final Pattern MANIFEST_REGEX = Pattern.compile("^\\s*Implementation-Version\\s*:\\s*(.*?)\\s*$");
+
+    private static final List<String> TOML_SAMPLES = List.of(
+            "modLoader=\"javafml\"\n[[mods]]\nmodId=\"a\"\nversion=\"1.0\"\n",
+            "[[mods]]\nmodId = 'a' # comment\nversion = '1.0'\n[[dependencies.a]]\nmodId=\"forge\"\n",
+            "[[mods]]\nversion=\"${file.jarVersion}\"\n",
+            "[[mods]]\nversion=\"1\"\n[[mods]]\nversion=\"2\"\n",
+            "[[mods]]\nmodId=\"a\"\n",
+            "modLoader=\"javafml\"\n",
+            "[[mods]]\ndescription='''\nmultiline [[mods]]\n'''\nversion=\"1.0\"\n",
+            "[[mods]]\nversion=\"\"\"\n1.0\"\"\"\n",
+            "[[mods]]\nversion=\"\\u0031.0\"\n",
+            "[[mods]]\n\"version\" = \"1.0\"\n",
+            "[[mods]]\nversion=1.0\n",
+            "mods = [ { version = \"1\" } ]\n",
+            "mods = [ { version = \"1\" }, { version = \"2\" } ]\n",
+            "[mods]\nversion=\"1\"\n",
+            "[[mods]]\nversion=\"1\"\n[mods.extra]\nkey=\"value\"\n",
+            "[[mods]]\r\nversion=\"1.0\"\r\n"
+    );
+
+    private static final List<String> LEGACY_SAMPLES = List.of(
+            "[{\"modid\":\"a\",\"version\":\"1.0\"}]",
+            "{\"modid\":\"a\",\"version\":\"1.0\"}",
+            "[]",
+            "[{\"version\":\"1\"},{\"version\":\"2\"}]",
+            "[{\"modid\":\"a\",\"version\":1.5}]",
+            "[{\"modid\":\"a\",\"version\":\"${version}\"}]",
+            "[{\"modid\":\"a\"}]",
+            "{\"modList\":[{\"version\":\"1\"}]}"
+    );
+
+    private static final List<String> MANIFEST_SAMPLES = List.of(
+            "Manifest-Version: 1.0\nImplementation-Version: 1.2.3\n",
+            "Manifest-Version: 1.0\r\nImplementation-Version:  1.2.3  \r\n",
+            "Manifest-Version: 1.0\n",
+            "Implementation-Version : 1\nImplementation-Version: 2\n",
+            "  Implementation-Version:\n"
+    );
+
+    private int checked = 0;
+    private int mismatches = 0;
+
+    public static void main(String[] args) throws IOException {
+        MetadataDiff diff = new MetadataDiff();
+        for (String sample : TOML_SAMPLES) diff.compareToml("sample", sample.getBytes(StandardCharsets.UTF_8));
+        for (String sample : LEGACY_SAMPLES) diff.compareLegacy("sample", sample.getBytes(StandardCharsets.UTF_8));
+        for (String sample : MANIFEST_SAMPLES) diff.compareManifest("sample", sample.getBytes(StandardCharsets.UTF_8));
+        for (String arg : args) {
+            try (Stream<Path> paths = Files.walk(Path.of(arg))) {
+                for (Path path : paths.filter(p -> p.getFileName().toString().endsWith(".jar")).sorted().toList()) {
+                    diff.compareJar(path);
+                }
+            }
+        }
+        System.out.println("Checked " + diff.checked + " metadata file(s), " + diff.mismatches + " mismatch(es)");
+        if (diff.mismatches > 0) System.exit(1);
+    }
+
+    private void compareJar(Path path) throws IOException {
+        try (ZipInputStream zin = new ZipInputStream(Files.newInputStream(path))) {
+            ZipEntry entry = zin.getNextEntry();
+            while (entry != null) {
+                String name = entry.getName().startsWith("/") ? entry.getName().substring(1) : entry.getName();
+                switch (name) {
+                    case "META-INF/neoforge.mods.toml", "META-INF/mods.toml" -> this.compareToml(path + "!" + name, zin.readAllBytes());
+                    case "mcmod.info" -> this.compareLegacy(path + "!" + name, zin.readAllBytes());
+                    case "META-INF/MANIFEST.MF" -> this.compareManifest(path + "!" + name, zin.readAllBytes());
+                    default -> {}
+                }
+                entry = zin.getNextEntry();
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to read " + path + ": " + e.getMessage());
+        }
+    }
+
+    private void compareToml(String name, byte[] data) {
+        this.compare(name, data, d -> VersionResolver.versionFromToml(d, "mods.toml"), MetadataDiff::referenceToml);
+    }
+
+    private void compareLegacy(String name, byte[] data) {
+        this.compare(name, data, VersionResolver::versionFromLegacy, MetadataDiff::referenceLegacy);
+    }
+
+    private void compareManifest(String name, byte[] data) {
+        this.compare(name, data, VersionResolver::versionFromManifest, MetadataDiff::referenceManifest);
+    }
+
+    // Only the outcome is compared, error messages may differ
+    private void compare(String name, byte[] data, Function<byte[], String> scanner, Function<byte[], String> reference) {
+        this.checked += 1;
+        Optional<String> scanned = outcome(scanner, data);
+        Optional<String> expected = outcome(reference, data);
+        if (!scanned.equals(expected)) {
+            this.mismatches += 1;
+            System.out.println("Mismatch in " + name + ": scanner " + scanned.orElse("<failed>") + ", reference " + expected.orElse("<failed>"));
+            System.out.println(new String(data, StandardCharsets.UTF_8).indent(4));
+        }
+    }
+
+    private static Optional<String> outcome(Function<byte[], String> resolver, byte[] data) {
+        try {
+            return Optional.of(resolver.apply(data));
+        } catch (Exception e) {
+            return Optional.empty();
+        }
+    }
+
+    private static String referenceToml(byte[] data) {
+        Toml toml = new Toml().read(new StringReader(text(data)));
+        List<Toml> tables = toml.getTables("mods");
+        if (tables.isEmpty()) throw new IllegalStateException("No mods in mods.toml");
+        if (tables.size() != 1) throw new IllegalStateException("Multiple mods in mods.toml");
+        String version = tables.getFirst().getString("version").strip();
+        if (version.startsWith("$")) throw new IllegalStateException("Version variable in mods.toml");
+        return version;
+    }
+
+    private static String referenceLegacy(byte[] data) {
+        JsonElement json = UpdateCheckerGenerator.GSON.fromJson(text(data), JsonElement.class);
+        JsonObject modObj;
+        if (json.isJsonArray()) {
+            if (json.getAsJsonArray().size() == 1) {
+                modObj = json.getAsJsonArray().get(0).getAsJsonObject();
+            } else if (json.getAsJsonArray().isEmpty()) {
+                throw new IllegalStateException("No mods defined in mcmod.info");
+            } else {
+                throw new IllegalStateException("Multiple mods defined in mcmod.info");
+            }
+        } else if (json.isJsonObject()) {
+            modObj = json.getAsJsonObject();
+        } else {
+            throw new IllegalStateException("Invalid mcmod.info file");
+        }
+        String version = modObj.get("version").getAsString().strip();
+        if (version.startsWith("$")) throw new IllegalStateException("Version variable in mcmod.info");
+        return version;
+    }
+
+    private static String referenceManifest(byte[] data) {
+        return Arrays.stream(text(data).split("\n"))
+                .flatMap(str -> {
+                    Matcher match = MANIFEST_REGEX.matcher(str);
+                    return match.matches() ? Stream.of(match.group(1).strip()) : Stream.empty();
+                })
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("No Implementation-Version in jar manifest"));
+    }
+
+    private static String text(byte[] data) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(data), StandardCharsets.UTF_8))) {
+            return String.join("\n", reader.lines().toList());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}